@@ -0,0 +1,48 @@
+package io.github.codert96.orm.benchmark;
+
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Table(name = "benchmark_user")
+public class BenchmarkUser {
+    @Id
+    private Long id;
+
+    private String userName;
+
+    private Integer age;
+
+    private String email;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -0,0 +1,50 @@
+package io.github.codert96.orm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.codert96.orm.core.Example;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内嵌 H2 数据库，每个 trial 使用独立的内存库
+ */
+final class Database {
+    private final SingleConnectionDataSource dataSource;
+
+    final JdbcTemplate jdbcTemplate;
+
+    Database(String name) {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1".formatted(name), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS benchmark_user");
+        jdbcTemplate.execute("CREATE TABLE benchmark_user (id BIGINT PRIMARY KEY, user_name VARCHAR(64), age INT, email VARCHAR(128))");
+        Example.setNamedParameterJdbcOperations(new NamedParameterJdbcTemplate(jdbcTemplate));
+        Example.setObjectMapper(new ObjectMapper());
+    }
+
+    void insert(int rows) {
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (long i = 1; i <= rows; i++) {
+            batch.add(new Object[]{i, "user" + i, (int) (i % 100), "user%d@example.com".formatted(i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO benchmark_user (id, user_name, age, email) VALUES (?, ?, ?, ?)", batch);
+    }
+
+    void close() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS benchmark_user");
+        dataSource.destroy();
+    }
+
+    static BenchmarkUser user(long id) {
+        BenchmarkUser user = new BenchmarkUser();
+        user.setId(id);
+        user.setUserName("user" + id);
+        user.setAge((int) (id % 100));
+        user.setEmail("user%d@example.com".formatted(id));
+        return user;
+    }
+}
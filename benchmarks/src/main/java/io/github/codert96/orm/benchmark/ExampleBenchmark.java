@@ -0,0 +1,55 @@
+package io.github.codert96.orm.benchmark;
+
+import io.github.codert96.orm.core.Example;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件构造与 WHERE 拼接，不访问数据库
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExampleBenchmark {
+    @Param({"2", "8"})
+    private int depth;
+
+    private BenchmarkUser user;
+
+    @Setup
+    public void setup() {
+        user = Database.user(1);
+    }
+
+    @Benchmark
+    public String build() {
+        return Example.of(user)
+                .eq(BenchmarkUser::getId)
+                .ge(BenchmarkUser::getAge)
+                .like(BenchmarkUser::getUserName)
+                .isNotNull(BenchmarkUser::getEmail)
+                .toString();
+    }
+
+    @Benchmark
+    public String nestedWhere() {
+        Example<BenchmarkUser, BenchmarkUser> example = Example.of(user).eq(BenchmarkUser::getId);
+        nest(example, depth);
+        return example.toString();
+    }
+
+    private static void nest(Example<BenchmarkUser, BenchmarkUser> example, int depth) {
+        if (depth == 0) {
+            return;
+        }
+        if ((depth & 1) == 0) {
+            example.or(or -> nest(or.eq(BenchmarkUser::getUserName).le(BenchmarkUser::getAge), depth - 1));
+        } else {
+            example.and(and -> nest(and.ne(BenchmarkUser::getEmail).gt(BenchmarkUser::getAge), depth - 1));
+        }
+    }
+}
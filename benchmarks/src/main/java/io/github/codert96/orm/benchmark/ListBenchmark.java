@@ -0,0 +1,43 @@
+package io.github.codert96.orm.benchmark;
+
+import io.github.codert96.orm.core.Example;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * list() 查询并映射全部行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListBenchmark {
+    @Param({"1000", "100000"})
+    private int rows;
+
+    private Database database;
+
+    private BenchmarkUser probe;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        database = new Database("list_" + rows);
+        database.insert(rows);
+        probe = new BenchmarkUser();
+        probe.setAge(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<BenchmarkUser> list() {
+        return Example.of(probe).ge(BenchmarkUser::getAge).list();
+    }
+}
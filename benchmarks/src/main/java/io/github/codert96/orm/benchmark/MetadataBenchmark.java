@@ -0,0 +1,45 @@
+package io.github.codert96.orm.benchmark;
+
+import io.github.codert96.orm.core.ColumnFunction;
+import io.github.codert96.orm.core.ColumnInfo;
+import io.github.codert96.orm.utils.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 元数据解析，cold 每次调用前清除缓存，warm 命中缓存
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+    private final ColumnFunction<BenchmarkUser, String> column = BenchmarkUser::getUserName;
+
+    @Benchmark
+    public ColumnInfo extractColumnWarm() {
+        return Utils.extractColumn(column);
+    }
+
+    @Benchmark
+    public ColumnInfo extractColumnCold() {
+        Utils.clearCache(BenchmarkUser.class);
+        Utils.clearCache(column.getClass());
+        return Utils.extractColumn(column);
+    }
+
+    @Benchmark
+    public List<ColumnInfo> extractWarm() {
+        return Utils.extractColumns(BenchmarkUser.class);
+    }
+
+    @Benchmark
+    public List<ColumnInfo> extractCold() {
+        Utils.clearCache(BenchmarkUser.class);
+        return Utils.extractColumns(BenchmarkUser.class);
+    }
+}
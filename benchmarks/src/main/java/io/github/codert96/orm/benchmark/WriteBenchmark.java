@@ -0,0 +1,49 @@
+package io.github.codert96.orm.benchmark;
+
+import io.github.codert96.orm.core.Example;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单行 save()/update() 吞吐
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+    private static final int ROWS = 10_000;
+
+    private Database database;
+
+    private long nextId;
+
+    private long updateId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        database = new Database("write");
+        database.insert(ROWS);
+        nextId = ROWS;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public boolean save() {
+        return Example.of(Database.user(++nextId)).save();
+    }
+
+    @Benchmark
+    public boolean update() {
+        BenchmarkUser user = Database.user(updateId++ % ROWS + 1);
+        user.setAge((int) (updateId % 100));
+        return Example.of(user).set(BenchmarkUser::getAge).eq(BenchmarkUser::getId).update();
+    }
+}
@@ -1,15 +1,36 @@
 package io.github.codert96.orm.config;
 
 import io.github.codert96.orm.core.Example;
+import io.github.codert96.orm.core.QueryCache;
+import io.github.codert96.orm.core.SnapshotTracker;
+import io.github.codert96.orm.core.SqlCache;
+import io.github.codert96.orm.listener.QueryListener;
+import io.github.codert96.orm.sharding.ShardingRules;
 import lombok.Data;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 
 @Data
 public class Configuration {
-    public static final List<BiConsumer<List<?>, Class<?>>> AFTER_QUERY = new ArrayList<>();
+    /**
+     * 对所有查询生效，需要自行按结果类型过滤；按类型注册请使用 {@link #HOOKS}
+     */
+    public static final List<BiConsumer<List<?>, Class<?>>> AFTER_QUERY = new CopyOnWriteArrayList<>();
 
-    public static final List<BiConsumer<Example<?, ?>, Class<?>>> BEFORE_QUERY = new ArrayList<>();
+    public static final List<BiConsumer<Example<?, ?>, Class<?>>> BEFORE_QUERY = new CopyOnWriteArrayList<>();
+
+    public static final HookRegistry HOOKS = new HookRegistry();
+
+    public static final SqlCache SQL_CACHE = new SqlCache(1024);
+
+    public static final QueryCache QUERY_CACHE = new QueryCache(1024, Duration.ofMinutes(5));
+
+    public static final SnapshotTracker SNAPSHOTS = new SnapshotTracker();
+
+    public static final ShardingRules SHARDING = new ShardingRules();
+
+    public static final List<QueryListener> QUERY_LISTENERS = new CopyOnWriteArrayList<>();
 }
@@ -0,0 +1,109 @@
+package io.github.codert96.orm.config;
+
+import io.github.codert96.orm.core.Association;
+import io.github.codert96.orm.core.Example;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 按实体类或接口注册的查询前后置处理。注册与移除为写时复制，
+ * 每个结果类型在首次查询（或注册表变化后）解析一次匹配的处理器数组，之后查询只读取该数组
+ */
+public class HookRegistry {
+    @SuppressWarnings("unchecked")
+    private static final Consumer<Example<?, ?>>[] NO_BEFORE = (Consumer<Example<?, ?>>[]) new Consumer<?>[0];
+
+    @SuppressWarnings("unchecked")
+    private static final Consumer<List<?>>[] NO_AFTER = (Consumer<List<?>>[]) new Consumer<?>[0];
+
+    private final List<Registration<Consumer<Example<?, ?>>>> beforeHooks = new CopyOnWriteArrayList<>();
+
+    private final List<Registration<Consumer<List<?>>>> afterHooks = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final ClassValue<Dispatch[]> dispatch = new ClassValue<>() {
+        @Override
+        protected Dispatch[] computeValue(Class<?> type) {
+            return new Dispatch[1];
+        }
+    };
+
+    /**
+     * 查询 type 及其子类型前执行
+     */
+    public void before(Class<?> type, Consumer<Example<?, ?>> hook) {
+        beforeHooks.add(new Registration<>(type, hook));
+        version.incrementAndGet();
+    }
+
+    /**
+     * 查询 type 及其子类型得到非空结果后执行
+     */
+    public void after(Class<?> type, Consumer<List<?>> hook) {
+        afterHooks.add(new Registration<>(type, hook));
+        version.incrementAndGet();
+    }
+
+    /**
+     * 查询父类型得到结果后批量加载关联对象，移除时传入同一个 association
+     */
+    public void associate(Association<?, ?, ?> association) {
+        after(association.getParentClass(), association);
+    }
+
+    public void remove(Object hook) {
+        if (beforeHooks.removeIf(registration -> registration.hook == hook) | afterHooks.removeIf(registration -> registration.hook == hook)) {
+            version.incrementAndGet();
+        }
+    }
+
+    public void clear() {
+        beforeHooks.clear();
+        afterHooks.clear();
+        version.incrementAndGet();
+    }
+
+    public Consumer<Example<?, ?>>[] before(Class<?> resultClass) {
+        return resolve(resultClass).before;
+    }
+
+    public Consumer<List<?>>[] after(Class<?> resultClass) {
+        return resolve(resultClass).after;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Dispatch resolve(Class<?> resultClass) {
+        Dispatch[] holder = dispatch.get(resultClass);
+        Dispatch current = holder[0];
+        long currentVersion = version.get();
+        if (Objects.nonNull(current) && current.version == currentVersion) {
+            return current;
+        }
+        Consumer<Example<?, ?>>[] before = (Consumer<Example<?, ?>>[]) beforeHooks.stream()
+                .filter(registration -> registration.type.isAssignableFrom(resultClass))
+                .map(registration -> registration.hook)
+                .toArray(Consumer<?>[]::new);
+        Consumer<List<?>>[] after = (Consumer<List<?>>[]) afterHooks.stream()
+                .filter(registration -> registration.type.isAssignableFrom(resultClass))
+                .map(registration -> registration.hook)
+                .toArray(Consumer<?>[]::new);
+        current = new Dispatch(
+                currentVersion,
+                before.length == 0 ? NO_BEFORE : before,
+                after.length == 0 ? NO_AFTER : after
+        );
+        holder[0] = current;
+        return current;
+    }
+
+    private record Registration<H>(Class<?> type, H hook) {
+    }
+
+    private record Dispatch(long version, Consumer<Example<?, ?>>[] before, Consumer<List<?>>[] after) {
+    }
+}
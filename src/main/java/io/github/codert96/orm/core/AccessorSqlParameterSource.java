@@ -0,0 +1,44 @@
+package io.github.codert96.orm.core;
+
+import io.github.codert96.orm.utils.BeanAccessor;
+import io.github.codert96.orm.utils.Utils;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.lang.NonNull;
+
+/**
+ * 基于 {@link BeanAccessor} 的参数源，替代每次构建 BeanWrapper 的 BeanPropertySqlParameterSource
+ */
+public class AccessorSqlParameterSource extends AbstractSqlParameterSource {
+    private final Object bean;
+
+    private final BeanAccessor accessor;
+
+    public AccessorSqlParameterSource(Object bean) {
+        this.bean = bean;
+        this.accessor = Utils.accessor(bean.getClass());
+    }
+
+    @Override
+    public boolean hasValue(@NonNull String paramName) {
+        return accessor.has(paramName);
+    }
+
+    @Override
+    public Object getValue(@NonNull String paramName) {
+        return accessor.get(bean, paramName);
+    }
+
+    @Override
+    public int getSqlType(@NonNull String paramName) {
+        int sqlType = super.getSqlType(paramName);
+        if (sqlType != TYPE_UNKNOWN || !accessor.has(paramName)) {
+            return sqlType;
+        }
+        return accessor.sqlType(paramName);
+    }
+
+    @Override
+    public String[] getParameterNames() {
+        return accessor.names();
+    }
+}
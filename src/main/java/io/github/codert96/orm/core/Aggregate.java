@@ -0,0 +1,96 @@
+package io.github.codert96.orm.core;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.NumberUtils;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * 聚合函数。分片或分块查询时各部分的结果在内存中合并，AVG 以 SUM 与 COUNT 合并后再相除
+ */
+public enum Aggregate {
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX;
+
+    String select(String column) {
+        return this == AVG ? "SUM(%s), COUNT(%s)".formatted(column, column) : "%s(%s)".formatted(name(), column);
+    }
+
+    Object read(ResultSet rs, int index, Class<?> type) throws SQLException {
+        return switch (this) {
+            case COUNT -> rs.getLong(index);
+            case SUM -> rs.getBigDecimal(index);
+            case AVG -> new Object[]{rs.getBigDecimal(index), rs.getLong(index + 1)};
+            case MIN, MAX -> value(rs, index, type);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Object combine(Object left, Object right) {
+        if (Objects.isNull(left) || Objects.isNull(right)) {
+            return Objects.isNull(left) ? right : left;
+        }
+        return switch (this) {
+            case COUNT -> (Long) left + (Long) right;
+            case SUM -> ((BigDecimal) left).add((BigDecimal) right);
+            case AVG -> {
+                Object[] l = (Object[]) left;
+                Object[] r = (Object[]) right;
+                yield new Object[]{SUM.combine(l[0], r[0]), (Long) l[1] + (Long) r[1]};
+            }
+            case MIN -> ((Comparable) left).compareTo(right) <= 0 ? left : right;
+            case MAX -> ((Comparable) left).compareTo(right) >= 0 ? left : right;
+        };
+    }
+
+    Object complete(Object value) {
+        if (this != AVG) {
+            return value;
+        }
+        Object[] partial = (Object[]) value;
+        long count = (Long) partial[1];
+        return count == 0 || Objects.isNull(partial[0]) ? null : ((BigDecimal) partial[0]).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+    }
+
+    /**
+     * 按属性类型读取列值，不经过 ObjectMapper
+     */
+    @SuppressWarnings("unchecked")
+    static Object value(ResultSet rs, int index, Class<?> type) throws SQLException {
+        Class<?> boxed = ClassUtils.resolvePrimitiveIfNecessary(type);
+        if (boxed.isEnum()) {
+            Object value = rs.getObject(index);
+            Object[] constants = boxed.getEnumConstants();
+            if (value instanceof Number number) {
+                int ordinal = number.intValue();
+                if (ordinal < 0 || ordinal >= constants.length) {
+                    throw new IllegalArgumentException("%s 没有枚举值 %s".formatted(boxed.getSimpleName(), number));
+                }
+                return constants[ordinal];
+            }
+            if (value instanceof String string && StringUtils.hasText(string)) {
+                for (Object constant : constants) {
+                    if (((Enum<?>) constant).name().equals(string)) {
+                        return constant;
+                    }
+                }
+                throw new IllegalArgumentException("%s 没有枚举值 %s".formatted(boxed.getSimpleName(), string));
+            }
+            return null;
+        }
+        Object value = JdbcUtils.getResultSetValue(rs, index, boxed);
+        if (value instanceof Number number && Number.class.isAssignableFrom(boxed) && !boxed.isInstance(value)) {
+            return NumberUtils.convertNumberToTargetClass(number, (Class<Number>) boxed);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.codert96.orm.core;
+
+import io.github.codert96.orm.utils.Utils;
+import lombok.Getter;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.reflect.Constructor;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 批量加载关联对象：收集一次查询结果中所有父对象的键，用一条（按 inChunkSize 分块的）IN 查询取出全部子对象，
+ * 再按键哈希回填。子对象查询同样执行后置处理，因此嵌套关联按层加载，查询次数只与层数有关。
+ * <p>
+ * 通过 {@link io.github.codert96.orm.config.HookRegistry#associate} 注册；同一关联在一条加载链中只展开一次，避免环形关联无限递归
+ *
+ * @param <P> 父对象类型
+ * @param <C> 子对象类型
+ * @param <K> 关联键类型
+ */
+@Getter
+public class Association<P, C, K> implements Consumer<List<?>> {
+    private static final ThreadLocal<Set<Association<?, ?, ?>>> LOADING = ThreadLocal.withInitial(HashSet::new);
+
+    private final Class<P> parentClass;
+
+    private final ColumnFunction<P, K> parentKey;
+
+    private final Class<C> childClass;
+
+    private final ColumnFunction<C, K> childKey;
+
+    private final BiConsumer<P, List<C>> setter;
+
+    private Consumer<Example<C, C>> customizer = example -> {
+    };
+
+    private Association(Class<P> parentClass, ColumnFunction<P, K> parentKey, Class<C> childClass, ColumnFunction<C, K> childKey, BiConsumer<P, List<C>> setter) {
+        this.parentClass = parentClass;
+        this.parentKey = parentKey;
+        this.childClass = childClass;
+        this.childKey = childKey;
+        this.setter = setter;
+    }
+
+    /**
+     * 一对多：子对象的 childKey 等于父对象的 parentKey，没有子对象时回填空列表
+     */
+    public static <P, C, K> Association<P, C, K> many(Class<P> parentClass, ColumnFunction<P, K> parentKey, Class<C> childClass, ColumnFunction<C, K> childKey, BiConsumer<P, List<C>> setter) {
+        return new Association<>(parentClass, parentKey, childClass, childKey, setter);
+    }
+
+    /**
+     * 多对一或一对一：取第一个匹配的对象，没有时回填 null
+     */
+    public static <P, C, K> Association<P, C, K> one(Class<P> parentClass, ColumnFunction<P, K> parentKey, Class<C> childClass, ColumnFunction<C, K> childKey, BiConsumer<P, C> setter) {
+        return new Association<>(parentClass, parentKey, childClass, childKey, (parent, children) -> setter.accept(parent, children.isEmpty() ? null : children.get(0)));
+    }
+
+    /**
+     * 追加子对象查询条件，例如排序或过滤。子对象查询的 DTO 是 childClass 的空实例（属性均为默认值），
+     * 条件值可以用 param() 提供；排序与 LIMIT 在分块查询后统一生效
+     */
+    public Association<P, C, K> customize(Consumer<Example<C, C>> customizer) {
+        this.customizer = this.customizer.andThen(customizer);
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(List<?> rows) {
+        Map<K, List<P>> parents = new LinkedHashMap<>();
+        for (Object row : rows) {
+            if (!parentClass.isInstance(row)) {
+                continue;
+            }
+            P parent = (P) row;
+            K key = parentKey.apply(parent);
+            if (Objects.nonNull(key)) {
+                parents.computeIfAbsent(key, ignored -> new ArrayList<>(1)).add(parent);
+            }
+        }
+        Set<Association<?, ?, ?>> loading = LOADING.get();
+        if (parents.isEmpty() || !loading.add(this)) {
+            return;
+        }
+        Map<K, List<C>> children = new HashMap<>();
+        try {
+            for (C child : query(parents.keySet())) {
+                children.computeIfAbsent(childKey.apply(child), ignored -> new ArrayList<>()).add(child);
+            }
+        } finally {
+            loading.remove(this);
+        }
+        parents.forEach((key, matched) -> {
+            List<C> values = children.getOrDefault(key, List.of());
+            for (P parent : matched) {
+                setter.accept(parent, matched.size() == 1 ? values : new ArrayList<>(values));
+            }
+        });
+    }
+
+    private List<C> query(Collection<K> keys) {
+        Constructor<C> constructor = BeanUtils.getResolvableConstructor(childClass);
+        C probe = BeanUtils.instantiateClass(constructor, new Object[constructor.getParameterCount()]);
+        Example<C, C> example = Example.of(probe, childClass);
+        example.param(Utils.extractColumn(childKey).getFieldName(), new ArrayList<>(keys))
+                .in(InStrategy.CHUNKED, childKey);
+        customizer.accept(example);
+        return example.list();
+    }
+}
@@ -16,6 +16,8 @@ public class ColumnInfo {
 
     private boolean updatable = true;
 
+    private boolean id = false;
+
     public String fullName() {
         StringBuilder stringBuilder = new StringBuilder();
         if (StringUtils.hasText(tableName)) {
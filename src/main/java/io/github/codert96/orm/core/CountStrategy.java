@@ -0,0 +1,28 @@
+package io.github.codert96.orm.core;
+
+public enum CountStrategy {
+    /**
+     * 每次分页都先执行 COUNT
+     */
+    ALWAYS,
+
+    /**
+     * 先查数据，结果不足一页时由偏移量推算总数，否则再执行 COUNT
+     */
+    LAZY,
+
+    /**
+     * 使用 COUNT(*) OVER() 随数据查询一起返回总数
+     */
+    WINDOW,
+
+    /**
+     * COUNT 与数据查询在不同连接上并发执行，处于事务中时退化为 ALWAYS
+     */
+    PARALLEL,
+
+    /**
+     * 执行计划估算的行数超过阈值时直接使用估算值，否则执行 COUNT
+     */
+    ESTIMATE
+}
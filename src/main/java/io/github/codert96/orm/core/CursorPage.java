@@ -0,0 +1,38 @@
+package io.github.codert96.orm.core;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 键集分页，cursor 为上一页返回的 nextCursor，首页为 null
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    protected String cursor;
+    protected long size = 10;
+
+    protected String nextCursor;
+
+    protected boolean hasNext = false;
+
+    protected List<T> records = new ArrayList<>();
+
+
+    public static <T> CursorPage<T> of(long size) {
+        return of(null, size);
+    }
+
+    public static <T> CursorPage<T> of(String cursor, long size) {
+        CursorPage<T> page = new CursorPage<>();
+        page.setCursor(cursor);
+        page.setSize(size);
+        return page;
+    }
+}
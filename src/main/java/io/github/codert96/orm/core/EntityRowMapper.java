@@ -0,0 +1,338 @@
+package io.github.codert96.orm.core;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.codert96.orm.utils.Utils;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.NonNull;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 直接把 ResultSet 写入实体字段或 record 构造器，按 (结果类型, 列集合) 预编译映射计划
+ */
+@RequiredArgsConstructor
+public class EntityRowMapper<T> implements RowMapper<T> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<Map<String, Plan<?>>> PLANS = new ClassValue<>() {
+        @Override
+        protected Map<String, Plan<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Map<String, Property>> PROPERTIES = new ClassValue<>() {
+        @Override
+        protected Map<String, Property> computeValue(Class<?> type) {
+            return resolveProperties(type);
+        }
+    };
+
+    private final Class<T> resultClass;
+
+    private final ObjectMapper objectMapper;
+
+    private Plan<T> plan;
+
+    public static boolean supports(Class<?> clazz) {
+        if (clazz.isRecord()) {
+            return true;
+        }
+        if (clazz.isInterface() || clazz.isArray() || Modifier.isAbstract(clazz.getModifiers())
+                || Map.class.isAssignableFrom(clazz) || Collection.class.isAssignableFrom(clazz)
+                || BeanUtils.isSimpleValueType(clazz)) {
+            return false;
+        }
+        return Objects.nonNull(ClassUtils.getConstructorIfAvailable(clazz));
+    }
+
+    @Override
+    public T mapRow(@NonNull ResultSet rs, int rowNum) throws SQLException {
+        Plan<T> current = plan(rs);
+        return current.create(current.read(rs));
+    }
+
+    public Plan<T> plan(ResultSet rs) throws SQLException {
+        if (Objects.isNull(plan)) {
+            plan = plan(resultClass, rs.getMetaData(), objectMapper);
+        }
+        return plan;
+    }
+
+    public static <T> Plan<T> plan(Class<T> resultClass, ResultSetMetaData metaData, ObjectMapper objectMapper) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = JdbcUtils.lookupColumnName(metaData, i + 1).toLowerCase();
+        }
+        //noinspection unchecked
+        return (Plan<T>) PLANS.get(resultClass).computeIfAbsent(
+                String.join(",", labels),
+                key -> new Plan<>(resultClass, labels, objectMapper)
+        );
+    }
+
+    private static Map<String, Property> resolveProperties(Class<?> clazz) {
+        Map<String, Property> properties = new LinkedHashMap<>();
+        Map<String, String> columnNames = new HashMap<>();
+        if (!clazz.isRecord()) {
+            Utils.extractColumns(clazz).forEach(columnInfo -> columnNames.put(columnInfo.getFieldName(), columnInfo.getColumnName()));
+        }
+        if (clazz.isRecord()) {
+            RecordComponent[] components = clazz.getRecordComponents();
+            for (int i = 0; i < components.length; i++) {
+                RecordComponent component = components[i];
+                Property property = new Property(i, component.getName(), component.getType(), component.getGenericType(), null);
+                register(properties, property, component.getAccessor().getAnnotation(JsonProperty.class), columnNames);
+                Field field = ReflectionUtils.findField(clazz, component.getName());
+                if (Objects.nonNull(field)) {
+                    register(properties, property, field.getAnnotation(JsonProperty.class), columnNames);
+                }
+            }
+            return properties;
+        }
+        int[] slot = {0};
+        ReflectionUtils.doWithFields(clazz, field -> {
+            if (properties.containsKey(field.getName().toLowerCase())) {
+                return;
+            }
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(clazz, field.getName());
+            MethodHandle setter;
+            try {
+                if (Objects.nonNull(descriptor) && Objects.nonNull(descriptor.getWriteMethod())) {
+                    Method writeMethod = descriptor.getWriteMethod();
+                    ReflectionUtils.makeAccessible(writeMethod);
+                    setter = LOOKUP.unreflect(writeMethod);
+                } else if (!Modifier.isFinal(field.getModifiers())) {
+                    ReflectionUtils.makeAccessible(field);
+                    setter = LOOKUP.unreflectSetter(field);
+                } else {
+                    return;
+                }
+            } catch (IllegalAccessException e) {
+                return;
+            }
+            setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            Property property = new Property(slot[0]++, field.getName(), field.getType(), field.getGenericType(), setter);
+            register(properties, property, field.getAnnotation(JsonProperty.class), columnNames);
+        }, field -> !Modifier.isStatic(field.getModifiers()));
+        return properties;
+    }
+
+    private static void register(Map<String, Property> properties, Property property, JsonProperty jsonProperty, Map<String, String> columnNames) {
+        String name = property.name;
+        properties.putIfAbsent(name.toLowerCase(), property);
+        properties.putIfAbsent(JdbcUtils.convertPropertyNameToUnderscoreName(name), property);
+        String columnName = columnNames.get(name);
+        if (StringUtils.hasText(columnName)) {
+            properties.putIfAbsent(columnName.toLowerCase(), property);
+        }
+        if (Objects.nonNull(jsonProperty) && StringUtils.hasText(jsonProperty.value())) {
+            properties.putIfAbsent(jsonProperty.value().toLowerCase(), property);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Property {
+        private final int slot;
+        private final String name;
+        private final Class<?> type;
+        private final Type genericType;
+        private final MethodHandle setter;
+    }
+
+    @FunctionalInterface
+    private interface ColumnReader {
+        Object read(ResultSet rs, int index) throws SQLException;
+    }
+
+    /**
+     * 针对某一列集合预编译的映射计划，读取与构造分离，方便复用已读取的列值
+     */
+    public static final class Plan<T> {
+        private final int slotCount;
+        private final int[] slots;
+        private final ColumnReader[] readers;
+        private final MethodHandle[] setters;
+        private final Object[] defaults;
+        private final boolean[] present;
+        private final MethodHandle constructor;
+        private final boolean record;
+
+        @SneakyThrows
+        private Plan(Class<T> resultClass, String[] labels, ObjectMapper objectMapper) {
+            Map<String, Property> properties = PROPERTIES.get(resultClass);
+            this.record = resultClass.isRecord();
+            this.slotCount = (int) properties.values().stream().distinct().count();
+            this.slots = new int[labels.length];
+            this.readers = new ColumnReader[labels.length];
+            this.setters = new MethodHandle[slotCount];
+            this.defaults = new Object[slotCount];
+            this.present = new boolean[slotCount];
+            Set<Property> used = new HashSet<>();
+            for (int i = 0; i < labels.length; i++) {
+                Property property = properties.get(labels[i]);
+                if (Objects.isNull(property) || !used.add(property)) {
+                    slots[i] = -1;
+                    continue;
+                }
+                slots[i] = property.slot;
+                present[property.slot] = true;
+                readers[i] = reader(property, objectMapper);
+            }
+            for (Property property : properties.values()) {
+                setters[property.slot] = property.setter;
+                if (property.type.isPrimitive()) {
+                    defaults[property.slot] = Array.get(Array.newInstance(property.type, 1), 0);
+                }
+            }
+            if (record) {
+                Class<?>[] types = Arrays.stream(resultClass.getRecordComponents()).map(RecordComponent::getType).toArray(Class<?>[]::new);
+                Constructor<T> canonical = resultClass.getDeclaredConstructor(types);
+                ReflectionUtils.makeAccessible(canonical);
+                this.constructor = LOOKUP.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, types.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } else {
+                Constructor<T> noArgs = resultClass.getDeclaredConstructor();
+                ReflectionUtils.makeAccessible(noArgs);
+                this.constructor = LOOKUP.unreflectConstructor(noArgs)
+                        .asType(MethodType.methodType(Object.class));
+            }
+        }
+
+        /**
+         * 读取一行，按属性槽位返回已转换好的列值，未出现的列为 null
+         */
+        public Object[] read(ResultSet rs) throws SQLException {
+            Object[] values = new Object[slotCount];
+            for (int i = 0; i < slots.length; i++) {
+                int slot = slots[i];
+                if (slot >= 0) {
+                    values[slot] = readers[i].read(rs, i + 1);
+                }
+            }
+            return values;
+        }
+
+        @SneakyThrows
+        public T create(Object[] values) {
+            if (record) {
+                for (int i = 0; i < slotCount; i++) {
+                    if (Objects.isNull(values[i])) {
+                        values[i] = defaults[i];
+                    }
+                }
+                //noinspection unchecked
+                return (T) constructor.invokeExact(values);
+            }
+            Object instance = (Object) constructor.invokeExact();
+            for (int i = 0; i < slotCount; i++) {
+                Object value = values[i];
+                if (!present[i] || Objects.isNull(value) && Objects.nonNull(defaults[i])) {
+                    continue;
+                }
+                setters[i].invokeExact(instance, value);
+            }
+            //noinspection unchecked
+            return (T) instance;
+        }
+
+        private static ColumnReader reader(Property property, ObjectMapper objectMapper) {
+            Class<?> type = property.type;
+            Class<?> boxed = ClassUtils.resolvePrimitiveIfNecessary(type);
+            if (String.class == type) {
+                return ResultSet::getString;
+            }
+            if (BigInteger.class == type) {
+                return (rs, index) -> {
+                    BigDecimal value = rs.getBigDecimal(index);
+                    return Objects.isNull(value) ? null : value.toBigInteger();
+                };
+            }
+            if (Instant.class == type) {
+                return (rs, index) -> {
+                    Timestamp value = rs.getTimestamp(index);
+                    return Objects.isNull(value) ? null : value.toInstant();
+                };
+            }
+            if (type.isEnum()) {
+                Object[] constants = type.getEnumConstants();
+                return (rs, index) -> {
+                    Object value = JdbcUtils.getResultSetValue(rs, index, type);
+                    if (value instanceof Number number) {
+                        int ordinal = number.intValue();
+                        if (ordinal < 0 || ordinal >= constants.length) {
+                            throw new IllegalArgumentException("%s 没有枚举值 %s".formatted(type.getSimpleName(), number));
+                        }
+                        return constants[ordinal];
+                    }
+                    if (value instanceof String string && StringUtils.hasText(string)) {
+                        for (Object constant : constants) {
+                            if (((Enum<?>) constant).name().equals(string)) {
+                                return constant;
+                            }
+                        }
+                        return convert(objectMapper, string, property);
+                    }
+                    return null;
+                };
+            }
+            if (isDirect(type)) {
+                return (rs, index) -> {
+                    Object value = JdbcUtils.getResultSetValue(rs, index, type);
+                    if (Objects.isNull(value) || boxed.isInstance(value)) {
+                        return value;
+                    }
+                    return convert(objectMapper, value, property);
+                };
+            }
+            return (rs, index) -> convert(objectMapper, JdbcUtils.getResultSetValue(rs, index), property);
+        }
+
+        private static boolean isDirect(Class<?> type) {
+            return type.isPrimitive()
+                    || Number.class.isAssignableFrom(type)
+                    || Boolean.class == type
+                    || Character.class == type
+                    || byte[].class == type
+                    || java.util.Date.class.isAssignableFrom(type)
+                    || Temporal.class.isAssignableFrom(type)
+                    || UUID.class == type;
+        }
+
+        private static Object convert(ObjectMapper objectMapper, Object value, Property property) {
+            if (Objects.isNull(value)) {
+                return null;
+            }
+            if (Objects.isNull(objectMapper)) {
+                throw new IllegalStateException("无法转换列值到属性 %s：未设置 ObjectMapper".formatted(property.name));
+            }
+            JavaType javaType = objectMapper.constructType(property.genericType);
+            return objectMapper.convertValue(value, javaType);
+        }
+    }
+}
@@ -1,29 +1,78 @@
 package io.github.codert96.orm.core;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.TypeFactory;
 import io.github.codert96.orm.config.Configuration;
+import io.github.codert96.orm.dialect.Dialect;
+import io.github.codert96.orm.export.ExportFormat;
+import io.github.codert96.orm.export.ExportOptions;
+import io.github.codert96.orm.export.ResultSetExporter;
+import io.github.codert96.orm.loader.BulkLoader;
+import io.github.codert96.orm.listener.QueryEvent;
+import io.github.codert96.orm.listener.QueryListener;
+import io.github.codert96.orm.routing.Replica;
+import io.github.codert96.orm.routing.ReplicaRouter;
+import io.github.codert96.orm.sharding.MergingIterator;
+import io.github.codert96.orm.sharding.OrderLimit;
+import io.github.codert96.orm.sharding.Shard;
+import io.github.codert96.orm.sharding.ShardingRule;
+import io.github.codert96.orm.utils.BeanAccessor;
 import io.github.codert96.orm.utils.Utils;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import lombok.SneakyThrows;
 import lombok.experimental.Accessors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
 import org.springframework.lang.NonNull;
-import org.springframework.util.ReflectionUtils;
-import org.springframework.util.StopWatch;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.io.Serial;
 import java.io.Serializable;
-import java.lang.reflect.Field;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.text.MessageFormat;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
 @SuppressWarnings({"unused", "UnusedReturnValue"})
@@ -32,12 +81,43 @@ public class Example<DTO, T> implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private static final String WINDOW_TOTAL = "total_count__";
+
+    private static final Pattern HAVING = Pattern.compile("\\bHAVING\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern IN_EXPRESSION = Pattern.compile("^(\\S+) (NOT )?IN \\(:(\\w+)\\)$");
+
     @Setter
     private static NamedParameterJdbcOperations namedParameterJdbcOperations;
 
     @Setter
     private static ObjectMapper objectMapper;
 
+    /**
+     * 未设置时根据连接的数据库产品名自动识别
+     */
+    @Setter
+    private static volatile Dialect dialect;
+
+    /**
+     * 异步查询与分片扇出使用的线程池。默认在 JDK 21+ 上使用虚拟线程，
+     * 否则使用有上限的线程池，线程用满时由提交任务的线程自己执行
+     */
+    @Getter
+    @Setter
+    private static Executor executor = defaultExecutor();
+
+    /**
+     * 设置后读请求分发到只读副本，未设置时全部使用主库
+     */
+    @Getter
+    @Setter
+    private static volatile ReplicaRouter replicaRouter;
+
     private final DTO dto;
     private final Class<T> resultClass;
     private final List<String> firstExpressions = new ArrayList<>();
@@ -50,6 +130,10 @@ public class Example<DTO, T> implements Serializable {
 
     private final List<String> setExpressions = new ArrayList<>();
 
+    private final Map<String, Object> parameters = new HashMap<>();
+
+    private final Map<String, InStrategy> inStrategies = new LinkedHashMap<>();
+
     @Setter
     @Accessors(chain = true, fluent = true)
     private boolean useBefore = true;
@@ -73,13 +157,93 @@ public class Example<DTO, T> implements Serializable {
     @Setter
     @Accessors(chain = true, fluent = true)
     private boolean deleteAll = false;
+
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private int fetchSize = 0;
+
+    /**
+     * 启用查询结果缓存，见 {@link QueryCache}
+     */
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private boolean cacheable = false;
+
+    /**
+     * list() 结果记录原始列值，之后的 update() 只更新变化的列，见 {@link SnapshotTracker}
+     */
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private boolean trackChanges = false;
+
+    /**
+     * 读请求强制使用主库，例如需要读到刚写入的数据时
+     */
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private boolean forcePrimary = false;
+
+    /**
+     * 未显式指定策略的 in()/notIn() 使用的策略
+     */
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private InStrategy inStrategy = InStrategy.EXPAND;
+
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private int inChunkSize = 1000;
+
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private CountStrategy countStrategy = CountStrategy.ALWAYS;
+
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private long estimateThreshold = 100_000;
+
+    /**
+     * 大于 0 时，list() 的结果按列值估算超过该字节数后写入临时文件，返回按需解码的只读 {@link SpillableList}，
+     * 此时不经过查询缓存、不执行查询后置处理也不记录快照，调用方用完应关闭；未超出时与普通 list() 完全相同。
+     * 分片扇出与 CHUNKED 分块的 list() 不支持，设置后抛出 IllegalStateException
+     */
+    @Setter
+    @Accessors(chain = true, fluent = true)
+    private long memoryBudget = 0;
+
+    private ShardingRule shardingRule;
+
+    /**
+     * 写入的目标分片，由 DTO 的分片键决定
+     */
+    private Shard shard;
+
+    /**
+     * 查询条件以顶层 AND 固定了分片键（或已下发到单个分片），查询不再扇出；加入 OR 条件后失效
+     */
+    private boolean shardPinned = false;
+
+    /**
+     * page() 并行统计时用于取消落败的查询
+     */
+    private SqlCache.Cancellation cancellation;
     private final List<Consumer<Example<DTO, ?>>> beforeQuery = new ArrayList<>();
     private final List<Consumer<List<?>>> afterQuery = new ArrayList<>();
 
 
     public static <DTO, T> Example<DTO, T> of(@NonNull DTO dto, @NonNull Class<T> entityClass) {
         Utils.extract(entityClass);
-        return new Example<>(dto, entityClass).tableName(Utils.extractTableName(entityClass));
+        Example<DTO, T> example = new Example<>(dto, entityClass).tableName(Utils.extractTableName(entityClass));
+        ShardingRule rule = Configuration.SHARDING.rule(entityClass);
+        if (Objects.nonNull(rule)) {
+            example.shardingRule = rule;
+            Shard shard = rule.route(dto);
+            if (Objects.nonNull(shard)) {
+                example.shard = shard;
+                example.tableName = shard.tableName();
+            }
+        }
+        return example;
     }
 
     public static <DTO> Example<DTO, DTO> of(@NonNull DTO dto) {
@@ -170,14 +334,12 @@ public class Example<DTO, T> implements Serializable {
 
     @SafeVarargs
     public final <R> Example<DTO, T> in(boolean ignoreNull, ColumnFunction<DTO, R>... columns) {
-        for (ColumnFunction<DTO, R> column : columns) {
-            if (ignoreNull && Utils.isIgnore(dto, column)) {
-                continue;
-            }
-            ColumnInfo columnInfo = Utils.extractColumn(column);
-            whereExpressions.add("%s IN (:%s)".formatted(columnInfo.getColumnName(), columnInfo.getFieldName()));
-        }
-        return this;
+        return in(ignoreNull, false, inStrategy, columns);
+    }
+
+    @SafeVarargs
+    public final <R> Example<DTO, T> in(InStrategy strategy, ColumnFunction<DTO, R>... columns) {
+        return in(false, false, strategy, columns);
     }
 
     @SafeVarargs
@@ -187,12 +349,30 @@ public class Example<DTO, T> implements Serializable {
 
     @SafeVarargs
     public final <R> Example<DTO, T> notIn(boolean ignoreNull, ColumnFunction<DTO, R>... columns) {
+        return in(ignoreNull, true, inStrategy, columns);
+    }
+
+    @SafeVarargs
+    public final <R> Example<DTO, T> notIn(InStrategy strategy, ColumnFunction<DTO, R>... columns) {
+        return in(false, true, strategy, columns);
+    }
+
+    @SafeVarargs
+    private <R> Example<DTO, T> in(boolean ignoreNull, boolean not, InStrategy strategy, ColumnFunction<DTO, R>... columns) {
+        if (strategy == InStrategy.CHUNKED && not) {
+            strategy = InStrategy.PADDED;
+        }
         for (ColumnFunction<DTO, R> column : columns) {
             if (ignoreNull && Utils.isIgnore(dto, column)) {
                 continue;
             }
             ColumnInfo columnInfo = Utils.extractColumn(column);
-            whereExpressions.add("%s NOT IN (:%s)".formatted(columnInfo.getColumnName(), columnInfo.getFieldName()));
+            String columnName = columnInfo.getColumnName();
+            String fieldName = columnInfo.getFieldName();
+            whereExpressions.add((not ? "%s NOT IN (:%s)" : "%s IN (:%s)").formatted(columnName, fieldName));
+            if (strategy != InStrategy.EXPAND) {
+                inStrategies.put(fieldName, strategy);
+            }
         }
         return this;
     }
@@ -279,9 +459,15 @@ public class Example<DTO, T> implements Serializable {
 
     private Example<DTO, T> apply(String str, Consumer<Example<DTO, T>> consumer) {
         Example<DTO, T> example = new Example<>(dto, resultClass);
+        example.inStrategy = inStrategy;
         consumer.accept(example);
+        parameters.putAll(example.parameters);
+        inStrategies.putAll(example.inStrategies);
         String where = example.toWhere();
         if (!example.whereExpressions.isEmpty()) {
+            if ("OR".equals(str)) {
+                shardPinned = false;
+            }
             if (example.whereExpressions.size() > 1) {
                 whereExpressions.add(
                         " %s (%s)".formatted(str, where)
@@ -327,9 +513,11 @@ public class Example<DTO, T> implements Serializable {
     @SafeVarargs
     public final <R> Example<DTO, T> apply(String sqlCorn, ColumnFunction<DTO, R>... columns) {
         Object[] array = Arrays.stream(columns).map(Utils::extractColumn).map(columnInfo -> ":%s".formatted(columnInfo.getFieldName())).toArray();
-        whereExpressions.add(
-                MessageFormat.format(sqlCorn, array)
-        );
+        String expression = MessageFormat.format(sqlCorn, array);
+        if (expression.startsWith(" OR ")) {
+            shardPinned = false;
+        }
+        whereExpressions.add(expression);
         return this;
     }
 
@@ -342,6 +530,10 @@ public class Example<DTO, T> implements Serializable {
             }
             ColumnInfo columnInfo = Utils.extractColumn(column);
             whereExpressions.add(format.format(new Object[]{columnInfo.getColumnName(), operator, columnInfo.getFieldName()}));
+            if ("=".equals(operator) && Objects.nonNull(shard) && shardingRule.getKeyField().equals(columnInfo.getFieldName())
+                    && whereExpressions.stream().noneMatch(expression -> expression.startsWith(" OR "))) {
+                shardPinned = true;
+            }
         }
         return this;
     }
@@ -375,6 +567,7 @@ public class Example<DTO, T> implements Serializable {
 
     public Example<DTO, T> clearWhere() {
         whereExpressions.clear();
+        shardPinned = false;
         return this;
     }
 
@@ -391,7 +584,7 @@ public class Example<DTO, T> implements Serializable {
     private String toWhere() {
         StringBuilder stringBuilder = new StringBuilder();
         for (int i = 0; i < whereExpressions.size(); i++) {
-            String s = whereExpressions.get(i);
+            String s = arrayExpression(whereExpressions.get(i));
             if (s.startsWith(" AND ") || s.startsWith(" OR ")) {
                 if (i == 0) {
                     stringBuilder.append(
@@ -412,39 +605,696 @@ public class Example<DTO, T> implements Serializable {
         return stringBuilder.toString().trim();
     }
 
+    /**
+     * ARRAY 策略的 IN 条件在生成 SQL 时按方言改写为 = ANY(:param)，构建条件时不访问数据库
+     */
+    private String arrayExpression(String expression) {
+        if (!inStrategies.containsValue(InStrategy.ARRAY)) {
+            return expression;
+        }
+        Matcher matcher = IN_EXPRESSION.matcher(expression);
+        if (!matcher.matches() || inStrategies.get(matcher.group(3)) != InStrategy.ARRAY || !dialect().supportsArrayBinding()) {
+            return expression;
+        }
+        return (Objects.isNull(matcher.group(2)) ? "%s = ANY(:%s)" : "NOT (%s = ANY(:%s))").formatted(matcher.group(1), matcher.group(3));
+    }
+
+    /**
+     * SQL 缓存键中的 WHERE 取改写后的文本，使 ARRAY 与其它策略的同名条件不会共用同一条 SQL
+     */
+    private List<String> whereShape() {
+        return inStrategies.containsValue(InStrategy.ARRAY) ? whereExpressions.stream().map(this::arrayExpression).toList() : List.copyOf(whereExpressions);
+    }
+
     public Long count() {
         return count("1");
     }
 
     public Long count(String column) {
+        if (fanOut()) {
+            before();
+            return fanOut(example -> example.count(column), OrderLimit.parse(lastExpressions).unordered()).stream().mapToLong(Long::longValue).sum();
+        }
+        Map.Entry<String, List<Object>> chunked = chunkedIn();
+        if (Objects.nonNull(chunked)) {
+            before();
+            return chunks(chunked, OrderLimit.parse(lastExpressions).unordered()).stream().mapToLong(example -> example.count(column)).sum();
+        }
+        Example<DTO, T> example = copy().clearSelect().select("COUNT(%s) AS count_number".formatted(column));
+        example.before();
+        SqlCache.CachedSql cachedSql = example.selectSql();
+        SqlParameterSource paramSource = example.paramSource();
+        QueryCache queryCache = Configuration.QUERY_CACHE;
+        if (cacheable || queryCache.isEnabled(resultClass)) {
+            Object key = queryCache.key(Long.class, cachedSql, paramSource);
+            long generation = queryCache.generation(tableName);
+            Object hit = queryCache.get(key);
+            if (hit instanceof Long count) {
+                return count;
+            }
+            Long count = example.query("COUNT", cachedSql, paramSource, rs -> rs.next() ? rs.getLong(1) : 0L);
+            return queryCache.put(key, tableName, generation, Objects.requireNonNullElse(count, 0L));
+        }
+        Long count = example.query("COUNT", cachedSql, paramSource, rs -> rs.next() ? rs.getLong(1) : 0L);
+        return Objects.requireNonNullElse(count, 0L);
+    }
+
+    /**
+     * 没有匹配行或全为 NULL 时返回 0
+     */
+    public BigDecimal sum(ColumnFunction<DTO, ?> column) {
+        return (BigDecimal) Objects.requireNonNullElse(aggregate(Aggregate.SUM, column), BigDecimal.ZERO);
+    }
+
+    /**
+     * 以 SUM / COUNT 计算，没有非 NULL 值时返回 null
+     */
+    public BigDecimal avg(ColumnFunction<DTO, ?> column) {
+        return (BigDecimal) aggregate(Aggregate.AVG, column);
+    }
+
+    /**
+     * 按属性类型返回，没有非 NULL 值时返回 null
+     */
+    public <R> R min(ColumnFunction<DTO, R> column) {
+        //noinspection unchecked
+        return (R) aggregate(Aggregate.MIN, column);
+    }
+
+    public <R> R max(ColumnFunction<DTO, R> column) {
+        //noinspection unchecked
+        return (R) aggregate(Aggregate.MAX, column);
+    }
+
+    /**
+     * SELECT 1 ... LIMIT 1，分片时逐个分片查询，命中即返回
+     */
+    public boolean exists() {
+        List<String> unordered = OrderLimit.parse(lastExpressions).unordered();
+        if (fanOut()) {
+            before();
+            for (Shard target : shardingRule.getShards()) {
+                if (pin(target, unordered).exists()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Map.Entry<String, List<Object>> chunked = chunkedIn();
+        if (Objects.nonNull(chunked)) {
+            before();
+            for (Example<DTO, T> example : chunks(chunked, unordered)) {
+                if (example.exists()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Example<DTO, T> example = copy().clearSelect().select("1");
+        example.lastExpressions.clear();
+        example.lastExpressions.addAll(unordered);
+        example.lastExpressions.add("LIMIT 1");
+        example.before();
+        return Boolean.TRUE.equals(example.query("EXISTS", example.selectSql(), example.paramSource(), ResultSet::next));
+    }
+
+    /**
+     * 按列分组计数，键按属性类型读取；分片时按分片顺序合并，ORDER BY 与 LIMIT 不下发，不支持 HAVING
+     */
+    public <K> Map<K, Long> groupBy(ColumnFunction<DTO, K> key) {
         //noinspection unchecked
-        Class<Map<String, Long>> rawClass = (Class<Map<String, Long>>) TypeFactory.defaultInstance()
-                .constructMapType(HashMap.class, String.class, Long.class)
-                .getRawClass();
-        Example<DTO, Map<String, Long>> example = copy(rawClass);
-        List<Map<String, Long>> query = example.clearSelect().select("COUNT(%s) AS count_number".formatted(column)).list();
-        if (query.isEmpty()) {
-            return 0L;
+        return (Map<K, Long>) (Map<K, ?>) groupBy(key, Aggregate.COUNT, "1", Long.class);
+    }
+
+    /**
+     * 按列分组聚合数值列，GROUP BY 置于 last() 之前，因此可以用 last() 追加 HAVING 与 ORDER BY
+     */
+    public <K> Map<K, BigDecimal> groupBy(ColumnFunction<DTO, K> key, Aggregate aggregate, ColumnFunction<DTO, ?> column) {
+        Map<K, Object> values = groupBy(key, aggregate, Utils.extractColumn(column).getColumnName(), BigDecimal.class);
+        Map<K, BigDecimal> result = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+        values.forEach((k, value) -> result.put(k, value instanceof Long count ? BigDecimal.valueOf(count) : (BigDecimal) value));
+        return result;
+    }
+
+    private Object aggregate(Aggregate aggregate, ColumnFunction<DTO, ?> column) {
+        ColumnInfo columnInfo = Utils.extractColumn(column);
+        Class<?> type = aggregate == Aggregate.MIN || aggregate == Aggregate.MAX ? propertyType(columnInfo.getFieldName()) : BigDecimal.class;
+        return groupBy(null, aggregate, columnInfo.getColumnName(), type).get(null);
+    }
+
+    private <K> Map<K, Object> groupBy(ColumnFunction<DTO, K> key, Aggregate aggregate, String column, Class<?> valueType) {
+        if (Objects.nonNull(key) && !lastExpressions.isEmpty() && !fanOut() && Objects.nonNull(chunkedIn())) {
+            throw new IllegalStateException("CHUNKED 分块的 groupBy 无法合并 last() 中的 HAVING/ORDER BY/LIMIT");
+        }
+        if (Objects.nonNull(key) && fanOut() && HAVING.matcher(String.join(" ", lastExpressions)).find()) {
+            throw new IllegalStateException("分片扇出的 groupBy 无法在合并后执行 last() 中的 HAVING");
+        }
+        String keyColumn = Objects.isNull(key) ? null : Utils.extractColumn(key).getColumnName();
+        Class<?> keyType = Objects.isNull(key) ? null : propertyType(Utils.extractColumn(key).getFieldName());
+        List<Map<K, Object>> parts = partials(example -> example.<K>aggregateQuery(keyColumn, keyType, aggregate, column, valueType));
+        Map<K, Object> merged = parts.get(0);
+        if (parts.size() > 1) {
+            merged = new LinkedHashMap<>();
+            for (Map<K, Object> part : parts) {
+                for (Map.Entry<K, Object> entry : part.entrySet()) {
+                    merged.put(entry.getKey(), merged.containsKey(entry.getKey()) ? aggregate.combine(merged.get(entry.getKey()), entry.getValue()) : entry.getValue());
+                }
+            }
+        }
+        merged.replaceAll((k, value) -> aggregate.complete(value));
+        return merged;
+    }
+
+    /**
+     * 分片扇出与 CHUNKED 分块后的各部分结果
+     */
+    private <R> List<R> partials(Function<Example<DTO, T>, R> query) {
+        if (fanOut()) {
+            before();
+            List<R> parts = new ArrayList<>();
+            fanOut(example -> example.partials(query), OrderLimit.parse(lastExpressions).unordered()).forEach(parts::addAll);
+            return parts;
+        }
+        Map.Entry<String, List<Object>> chunked = chunkedIn();
+        if (Objects.nonNull(chunked)) {
+            before();
+            return chunks(chunked, lastExpressions).stream().map(query).toList();
+        }
+        return List.of(query.apply(this));
+    }
+
+    private <K> Map<K, Object> aggregateQuery(String keyColumn, Class<?> keyType, Aggregate aggregate, String column, Class<?> valueType) {
+        Example<DTO, T> example = copy().clearSelect();
+        if (Objects.isNull(keyColumn)) {
+            List<String> unordered = OrderLimit.parse(lastExpressions).unordered();
+            example.lastExpressions.clear();
+            example.lastExpressions.addAll(unordered);
+        } else {
+            example.select(keyColumn);
+            example.lastExpressions.add(0, "GROUP BY %s".formatted(keyColumn));
         }
-        Map<String, Long> map = query.get(0);
-        return map.getOrDefault("count_number", 0L);
+        example.select(aggregate.select(column));
+        example.before();
+        int index = Objects.isNull(keyColumn) ? 1 : 2;
+        return example.query(aggregate.name(), example.selectSql(), example.paramSource(), rs -> {
+            Map<K, Object> values = new LinkedHashMap<>();
+            while (rs.next()) {
+                //noinspection unchecked
+                K k = Objects.isNull(keyColumn) ? null : (K) Aggregate.value(rs, 1, keyType);
+                values.put(k, aggregate.read(rs, index, valueType));
+            }
+            return values;
+        });
+    }
+
+    private Class<?> propertyType(String fieldName) {
+        BeanAccessor accessor = Utils.accessor(resultClass);
+        if (accessor.has(fieldName)) {
+            return accessor.type(fieldName);
+        }
+        accessor = Utils.accessor(dto.getClass());
+        return accessor.has(fieldName) ? accessor.type(fieldName) : Object.class;
+    }
+
+    /**
+     * 只查询单列并直接读为基本类型数组，不经过实体映射，NULL 值被跳过
+     */
+    public long[] selectLongs(ColumnFunction<DTO, ?> column) {
+        return project(column, rs -> {
+            long[] values = new long[64];
+            int size = 0;
+            while (rs.next()) {
+                long value = rs.getLong(1);
+                if (rs.wasNull()) {
+                    continue;
+                }
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = value;
+            }
+            return Arrays.copyOf(values, size);
+        });
+    }
+
+    public int[] selectInts(ColumnFunction<DTO, ?> column) {
+        return project(column, rs -> {
+            int[] values = new int[64];
+            int size = 0;
+            while (rs.next()) {
+                int value = rs.getInt(1);
+                if (rs.wasNull()) {
+                    continue;
+                }
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = value;
+            }
+            return Arrays.copyOf(values, size);
+        });
+    }
+
+    public double[] selectDoubles(ColumnFunction<DTO, ?> column) {
+        return project(column, rs -> {
+            double[] values = new double[64];
+            int size = 0;
+            while (rs.next()) {
+                double value = rs.getDouble(1);
+                if (rs.wasNull()) {
+                    continue;
+                }
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size << 1);
+                }
+                values[size++] = value;
+            }
+            return Arrays.copyOf(values, size);
+        });
+    }
+
+    public List<String> selectStrings(ColumnFunction<DTO, ?> column) {
+        return project(column, rs -> {
+            List<String> values = new ArrayList<>();
+            while (rs.next()) {
+                String value = rs.getString(1);
+                if (Objects.nonNull(value)) {
+                    values.add(value);
+                }
+            }
+            return values;
+        });
+    }
+
+    /**
+     * 分片扇出时按分片顺序拼接各分片结果
+     */
+    private <R> R project(ColumnFunction<DTO, ?> column, ResultSetExtractor<R> extractor) {
+        if (fanOut()) {
+            before();
+            List<R> parts = fanOut(example -> example.project(column, extractor), lastExpressions);
+            R first = parts.get(0);
+            if (first instanceof List<?>) {
+                List<Object> values = new ArrayList<>();
+                parts.forEach(part -> values.addAll((List<?>) part));
+                //noinspection unchecked
+                return (R) values;
+            }
+            int length = parts.stream().mapToInt(Array::getLength).sum();
+            Object values = Array.newInstance(first.getClass().getComponentType(), length);
+            int index = 0;
+            for (R part : parts) {
+                int partLength = Array.getLength(part);
+                System.arraycopy(part, 0, values, index, partLength);
+                index += partLength;
+            }
+            //noinspection unchecked
+            return (R) values;
+        }
+        Example<DTO, T> example = copy().clearSelect().select(Utils.extractColumn(column).getColumnName());
+        example.before();
+        return example.query("SELECT", example.selectSql(), example.paramSource(), extractor);
     }
 
     public Page<T> page(Page<T> page) {
-        Long count = copy()
-                .useAfter(false)
-                .count("1");
-        page.setTotal(count);
-        if (Objects.equals(0L, count)) {
-            return page;
+        long offset = (page.getCurrent() - 1) * page.getSize();
+        Example<DTO, T> example = copy().last("LIMIT %s OFFSET %s".formatted(page.getSize(), offset));
+        CountStrategy strategy = countStrategy;
+        if (strategy == CountStrategy.PARALLEL && TransactionSynchronizationManager.isActualTransactionActive()
+                || strategy == CountStrategy.WINDOW && (fanOut() || Objects.nonNull(chunkedIn()))) {
+            strategy = CountStrategy.ALWAYS;
+        }
+        page.setApproximate(false);
+        switch (strategy) {
+            case LAZY -> {
+                List<T> records = example.list();
+                page.setRecords(records);
+                if (!records.isEmpty() && records.size() < page.getSize() || records.isEmpty() && offset == 0) {
+                    page.setTotal(offset + records.size());
+                } else {
+                    page.setTotal(copy().useAfter(false).count("1"));
+                }
+            }
+            case WINDOW -> {
+                AtomicLong total = new AtomicLong(-1);
+                RowMapper<T> rowMapper = example.rowMapper(WINDOW_TOTAL);
+                List<T> records = example.windowSelect().list((rs, rowNum) -> {
+                    if (rowNum == 0) {
+                        total.set(rs.getLong(WINDOW_TOTAL));
+                    }
+                    return rowMapper.mapRow(rs, rowNum);
+                });
+                page.setRecords(records);
+                page.setTotal(total.get() >= 0 ? total.get() : copy().useAfter(false).count("1"));
+            }
+            case PARALLEL -> {
+                Example<DTO, T> counter = copy().useAfter(false);
+                counter.cancellation = new SqlCache.Cancellation();
+                CompletableFuture<Long> count = CompletableFuture.supplyAsync(() -> counter.count("1"), executor);
+                List<T> records;
+                try {
+                    records = example.list();
+                } catch (RuntimeException e) {
+                    count.cancel(false);
+                    counter.cancellation.cancel();
+                    throw e;
+                }
+                page.setRecords(records);
+                page.setTotal(join(count));
+            }
+            case ESTIMATE -> {
+                Long estimate = copy().useAfter(false).estimateCount();
+                if (Objects.nonNull(estimate) && estimate >= estimateThreshold) {
+                    page.setTotal(estimate);
+                    page.setApproximate(true);
+                } else {
+                    page.setTotal(copy().useAfter(false).count("1"));
+                }
+                page.setRecords(page.getTotal() == 0 ? new ArrayList<>() : example.list());
+            }
+            default -> {
+                long count = copy().useAfter(false).count("1");
+                page.setTotal(count);
+                page.setRecords(count == 0 ? new ArrayList<>() : example.list());
+            }
         }
+        return page;
+    }
+
+    public CompletableFuture<List<T>> listAsync() {
+        return CompletableFuture.supplyAsync(this::list, executor);
+    }
+
+    public CompletableFuture<Long> countAsync() {
+        return CompletableFuture.supplyAsync(this::count, executor);
+    }
+
+    /**
+     * COUNT 与数据查询同时提交，任一失败时取消另一个仍在执行的查询；需要在事务中读取时请使用 {@link #page(Page)}
+     */
+    public CompletableFuture<Page<T>> pageAsync(Page<T> page) {
         long offset = (page.getCurrent() - 1) * page.getSize();
-        last("LIMIT %s OFFSET %s".formatted(page.getSize(), offset));
-        List<T> query = list();
-        page.setRecords(query);
+        SqlCache.Cancellation cancellation = new SqlCache.Cancellation();
+        Example<DTO, T> counter = copy().useAfter(false);
+        counter.cancellation = cancellation;
+        Example<DTO, T> lister = copy().last("LIMIT %s OFFSET %s".formatted(page.getSize(), offset));
+        lister.cancellation = cancellation;
+        CompletableFuture<Long> count = counter.countAsync();
+        CompletableFuture<List<T>> records = lister.listAsync();
+        CompletableFuture<Void> all = Queries.failFast(count, records);
+        all.whenComplete((ignored, error) -> {
+            if (Objects.nonNull(error)) {
+                cancellation.cancel();
+            }
+        });
+        return all.thenApply(ignored -> {
+            page.setApproximate(false);
+            page.setTotal(count.join());
+            page.setRecords(records.join());
+            return page;
+        });
+    }
+
+    /**
+     * 数据库不支持或无法估算时返回 null
+     */
+    public Long estimateCount() {
+        if (fanOut()) {
+            List<Long> estimates = fanOut(Example::estimateCount, OrderLimit.parse(lastExpressions).unordered());
+            return estimates.contains(null) ? null : estimates.stream().mapToLong(Long::longValue).sum();
+        }
+        Dialect currentDialect = dialect();
+        Example<DTO, T> example = copy();
+        example.before();
+        String select = example.selectSql().getSql();
+        String explain = currentDialect.explain(select);
+        if (Objects.isNull(explain)) {
+            return null;
+        }
+        SqlCache.CachedSql cachedSql = sql(List.of("EXPLAIN", currentDialect.getClass(), select), () -> explain);
+        return example.query("EXPLAIN", cachedSql, example.paramSource(), currentDialect::estimate);
+    }
+
+    private Example<DTO, T> windowSelect() {
+        if (selectExpressions.isEmpty()) {
+            List<String> extract = Utils.extract(resultClass);
+            select(extract.isEmpty() ? "*" : String.join(",", extract));
+        }
+        return select("COUNT(*) OVER() AS %s".formatted(WINDOW_TOTAL));
+    }
+
+    private static Executor defaultExecutor() {
+        if (Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("orm-query-");
+            taskExecutor.setVirtualThreads(true);
+            return taskExecutor;
+        }
+        AtomicLong threads = new AtomicLong();
+        int maxThreads = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+        return new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "orm-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    @SafeVarargs
+    public final CursorPage<T> seek(CursorPage<T> page, ColumnFunction<T, ?>... sortKeys) {
+        return seek(page, false, sortKeys);
+    }
+
+    /**
+     * 键集分页：按排序键做元组比较并多取一行判断是否有下一页，不统计总数。
+     * 排序键组合需唯一且非空，会覆盖 last 中的 ORDER BY / LIMIT
+     */
+    @SafeVarargs
+    public final CursorPage<T> seek(CursorPage<T> page, boolean desc, ColumnFunction<T, ?>... sortKeys) {
+        if (sortKeys.length == 0) {
+            throw new IllegalArgumentException("键集分页至少需要一个排序列");
+        }
+        List<ColumnInfo> columns = Stream.of(sortKeys).map(Utils::extractColumn).toList();
+        Example<DTO, T> example = copy().clearLast();
+        if (StringUtils.hasText(page.getCursor())) {
+            List<Object> values = decodeCursor(page.getCursor(), columns);
+            if (!example.whereExpressions.isEmpty()) {
+                String where = example.toWhere();
+                example.whereExpressions.clear();
+                example.whereExpressions.add("(%s)".formatted(where));
+            }
+            StringJoiner left = new StringJoiner(", ", "(", ")");
+            StringJoiner right = new StringJoiner(", ", "(", ")");
+            for (int i = 0; i < columns.size(); i++) {
+                String name = "__seek%s".formatted(i);
+                example.param(name, values.get(i));
+                left.add(columns.get(i).getColumnName());
+                right.add(":".concat(name));
+            }
+            example.whereExpressions.add("%s %s %s".formatted(left, desc ? "<" : ">", right));
+        }
+        String direction = desc ? "DESC" : "ASC";
+        example.last(
+                "ORDER BY %s".formatted(columns.stream().map(columnInfo -> "%s %s".formatted(columnInfo.getColumnName(), direction)).collect(Collectors.joining(", "))),
+                "LIMIT %s".formatted(page.getSize() + 1)
+        );
+        List<T> records = example.list();
+        boolean hasNext = records.size() > page.getSize();
+        if (hasNext) {
+            records = new ArrayList<>(records.subList(0, (int) page.getSize()));
+        }
+        page.setRecords(records);
+        page.setHasNext(hasNext);
+        page.setNextCursor(null);
+        if (hasNext) {
+            T last = records.get(records.size() - 1);
+            page.setNextCursor(encodeCursor(Stream.of(sortKeys).map(sortKey -> (Object) sortKey.apply(last)).toList()));
+        }
         return page;
     }
 
+    @SneakyThrows
+    private String encodeCursor(List<Object> values) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(values));
+    }
+
+    @SneakyThrows
+    private List<Object> decodeCursor(String cursor, List<ColumnInfo> columns) {
+        JsonNode nodes = objectMapper.readTree(Base64.getUrlDecoder().decode(cursor));
+        if (!nodes.isArray() || nodes.size() != columns.size()) {
+            throw new IllegalArgumentException("无效的分页游标：%s".formatted(cursor));
+        }
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            BeanAccessor accessor = Utils.accessor(resultClass);
+            String fieldName = columns.get(i).getFieldName();
+            Class<?> type = accessor.has(fieldName) ? accessor.type(fieldName) : Object.class;
+            values.add(objectMapper.convertValue(nodes.get(i), type));
+        }
+        return values;
+    }
+
+    /**
+     * 注册额外的命名参数，优先于 DTO 属性
+     */
+    public Example<DTO, T> param(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    private SqlParameterSource paramSource() {
+        SqlParameterSource source = baseParamSource();
+        if (inStrategies.isEmpty()) {
+            return source;
+        }
+        return new AbstractSqlParameterSource() {
+            @Override
+            public boolean hasValue(@NonNull String paramName) {
+                return source.hasValue(paramName);
+            }
+
+            @Override
+            public Object getValue(@NonNull String paramName) {
+                Object value = source.getValue(paramName);
+                InStrategy strategy = inStrategies.get(paramName);
+                if (Objects.isNull(strategy) || Objects.isNull(value)) {
+                    return value;
+                }
+                List<Object> values = inValues(value);
+                return strategy == InStrategy.ARRAY && dialect().supportsArrayBinding() ? arrayValue(values) : padded(values);
+            }
+
+            @Override
+            public int getSqlType(@NonNull String paramName) {
+                return inStrategies.get(paramName) == InStrategy.ARRAY && dialect().supportsArrayBinding() ? Types.ARRAY : source.getSqlType(paramName);
+            }
+        };
+    }
+
+    private static List<Object> inValues(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        if (value.getClass().isArray()) {
+            return new ArrayList<>(Arrays.asList(ObjectUtils.toObjectArray(value)));
+        }
+        return new ArrayList<>(List.of(value));
+    }
+
+    private static List<Object> padded(List<Object> values) {
+        int size = values.size();
+        if (size <= 1) {
+            return values;
+        }
+        int bucket = Integer.highestOneBit(size - 1) << 1;
+        Object last = values.get(size - 1);
+        while (values.size() < bucket) {
+            values.add(last);
+        }
+        return values;
+    }
+
+    private static ArrayValue arrayValue(List<Object> values) {
+        Object[] array = values.stream().map(value -> value instanceof Enum<?> e ? e.name() : value).toArray();
+        Class<?> elementType = Arrays.stream(array).filter(Objects::nonNull).findFirst().<Class<?>>map(Object::getClass).orElse(String.class);
+        return new ArrayValue(array, dialect().arrayType(elementType));
+    }
+
+    /**
+     * ARRAY 策略绑定的数组参数，查询缓存的键使用其中的值
+     */
+    static final class ArrayValue extends AbstractSqlTypeValue {
+        private final Object[] values;
+
+        private final String typeName;
+
+        private ArrayValue(Object[] values, String typeName) {
+            this.values = values;
+            this.typeName = typeName;
+        }
+
+        List<Object> values() {
+            return Arrays.asList(values);
+        }
+
+        @NonNull
+        @Override
+        protected Object createTypeValue(@NonNull Connection con, int sqlType, String ignored) throws SQLException {
+            return con.createArrayOf(typeName, values);
+        }
+    }
+
+    /**
+     * 第一个超过 inChunkSize 的 CHUNKED 参数及其去重后的值
+     */
+    private Map.Entry<String, List<Object>> chunkedIn() {
+        if (inStrategies.isEmpty()) {
+            return null;
+        }
+        SqlParameterSource source = baseParamSource();
+        for (Map.Entry<String, InStrategy> entry : inStrategies.entrySet()) {
+            if (entry.getValue() != InStrategy.CHUNKED || !source.hasValue(entry.getKey())) {
+                continue;
+            }
+            Object value = source.getValue(entry.getKey());
+            if (Objects.nonNull(value)) {
+                List<Object> values = new ArrayList<>(new LinkedHashSet<>(inValues(value)));
+                if (values.size() > inChunkSize) {
+                    return Map.entry(entry.getKey(), values);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * CHUNKED 参数按 inChunkSize 拆分后的各批查询，前后置处理已由当前实例执行
+     */
+    private List<Example<DTO, T>> chunks(Map.Entry<String, List<Object>> chunked, List<String> last) {
+        List<Object> values = chunked.getValue();
+        List<Example<DTO, T>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += inChunkSize) {
+            Example<DTO, T> example = copy().useBefore(false).useAfter(false).param(chunked.getKey(), values.subList(i, Math.min(i + inChunkSize, values.size())));
+            example.lastExpressions.clear();
+            example.lastExpressions.addAll(last);
+            chunks.add(example);
+        }
+        return chunks;
+    }
+
+    private SqlParameterSource baseParamSource() {
+        AccessorSqlParameterSource beanSource = new AccessorSqlParameterSource(dto);
+        if (parameters.isEmpty()) {
+            return beanSource;
+        }
+        MapSqlParameterSource mapSource = new MapSqlParameterSource(parameters);
+        return new AbstractSqlParameterSource() {
+            @Override
+            public boolean hasValue(@NonNull String paramName) {
+                return mapSource.hasValue(paramName) || beanSource.hasValue(paramName);
+            }
+
+            @Override
+            public Object getValue(@NonNull String paramName) {
+                return mapSource.hasValue(paramName) ? mapSource.getValue(paramName) : beanSource.getValue(paramName);
+            }
+
+            @Override
+            public int getSqlType(@NonNull String paramName) {
+                return mapSource.hasValue(paramName) ? mapSource.getSqlType(paramName) : beanSource.getSqlType(paramName);
+            }
+        };
+    }
+
     @SafeVarargs
     public final <R> Example<DTO, T> set(ColumnFunction<DTO, R>... columns) {
         for (ColumnFunction<DTO, R> column : columns) {
@@ -464,152 +1314,858 @@ public class Example<DTO, T> implements Serializable {
         return this;
     }
 
+    /**
+     * 分片扇出时各分片以游标按需读取并归并，只读取 LIMIT 所需的行；启用查询缓存时各分片分别查询并缓存后再归并。
+     * 分片扇出与 CHUNKED 分块查询的结果在堆内归并，不支持 memoryBudget
+     */
     public List<T> list() {
-        StringJoiner execSql = before();
-        execSql.add("SELECT");
-        if (selectExpressions.isEmpty()) {
-            List<String> extract = Utils.extract(resultClass);
-            if (extract.isEmpty()) {
-                execSql.add("*");
-            } else {
-                execSql.add(String.join(",", extract));
+        if (fanOut()) {
+            requireNoBudget("分片扇出");
+            before();
+            if (cacheable || Configuration.QUERY_CACHE.isEnabled(resultClass)) {
+                OrderLimit orderLimit = OrderLimit.parse(lastExpressions);
+                List<List<T>> parts = fanOut(example -> example.list(), orderLimit.pushdown());
+                List<T> result = new ArrayList<>();
+                merge(parts.stream().map(List::iterator).toList(), orderLimit).forEachRemaining(result::add);
+                if (!result.isEmpty()) {
+                    after(result);
+                }
+                return result;
+            }
+            try (Stream<T> rows = shardedStream()) {
+                return loaded(rows.collect(Collectors.toCollection(ArrayList::new)));
             }
-        } else {
-            execSql.add(
-                    String.join(System.lineSeparator(), selectExpressions)
-            );
-        }
-        execSql.add("FROM").add(tableName);
-        if (!whereExpressions.isEmpty()) {
-            execSql.add("WHERE").add(toWhere());
         }
-        if (!lastExpressions.isEmpty()) {
-            execSql.add(
-                    String.join(System.lineSeparator(), lastExpressions)
-            );
+        Map.Entry<String, List<Object>> chunked = chunkedIn();
+        if (Objects.isNull(chunked)) {
+            return list(null);
         }
-        String sql = execSql.toString();
-        StopWatch stopWatch = new StopWatch("查询：%s".formatted(tableName));
-        stopWatch.start("执行SQL");
-        List<Map<String, Object>> list = namedParameterJdbcOperations.query(sql, new BeanPropertySqlParameterSource(dto), new LowerCaseColumnMapRowMapper());
-        if (list.isEmpty()) {
-            return new ArrayList<>();
+        requireNoBudget("CHUNKED 分块");
+        before();
+        OrderLimit orderLimit = OrderLimit.parse(lastExpressions);
+        List<Iterator<T>> sources = chunks(chunked, orderLimit.pushdown()).stream().map(example -> example.list(null).iterator()).toList();
+        List<T> result = new ArrayList<>();
+        merge(sources, orderLimit).forEachRemaining(result::add);
+        if (!result.isEmpty()) {
+            after(result);
         }
-        ArrayList<T> result = objectMapper.convertValue(
-                list,
-                TypeFactory.defaultInstance().constructCollectionType(ArrayList.class, resultClass)
-        );
-        if (useAfter) {
-            Configuration.AFTER_QUERY.forEach(consumer -> consumer.accept(result, resultClass));
-            afterQuery.forEach(consumer -> consumer.accept(result));
+        return result;
+    }
+
+    private void requireNoBudget(String query) {
+        if (memoryBudget > 0) {
+            throw new IllegalStateException("%s查询在堆内归并结果，不支持 memoryBudget".formatted(query));
         }
+    }
 
-        stopWatch.stop();
-        StringJoiner formatLog = new StringJoiner(System.lineSeparator());
+    private List<T> list(RowMapper<T> rowMapper) {
+        before();
+        SqlCache.CachedSql cachedSql = selectSql();
+        SqlParameterSource paramSource = paramSource();
+        QueryCache queryCache = Configuration.QUERY_CACHE;
+        boolean spill = Objects.isNull(rowMapper) && memoryBudget > 0 && EntityRowMapper.supports(resultClass);
+        if (Objects.nonNull(rowMapper) || !cacheable && !queryCache.isEnabled(resultClass)) {
+            if (spill) {
+                List<T> result = spill(cachedSql, paramSource);
+                return result instanceof SpillableList<T> ? result : loaded(new ArrayList<>(result));
+            }
+            return loaded(query("SELECT", cachedSql, paramSource, new RowMapperResultSetExtractor<>(Objects.isNull(rowMapper) ? rowMapper() : rowMapper)));
+        }
+        Object key = queryCache.key(resultClass, cachedSql, paramSource);
+        long generation = queryCache.generation(tableName);
+        Object hit = queryCache.get(key);
+        if (hit instanceof QueryCache.Rows<?> rows) {
+            //noinspection unchecked
+            return loaded(new ArrayList<>((List<T>) rows));
+        }
+        if (Objects.nonNull(hit)) {
+            //noinspection unchecked
+            return (List<T>) hit;
+        }
+        boolean copy = queryCache.getPolicy() == QueryCache.Policy.COPY && EntityRowMapper.supports(resultClass);
+        if (spill || copy) {
+            List<T> rows = spill ? spill(cachedSql, paramSource) : query("SELECT", cachedSql, paramSource, rs -> QueryCache.Rows.read(rs, resultClass, objectMapper));
+            if (rows instanceof SpillableList<T>) {
+                return rows;
+            }
+            if (copy) {
+                queryCache.put(key, tableName, generation, rows);
+                return loaded(new ArrayList<>(rows));
+            }
+            return queryCache.put(key, tableName, generation, loaded(new ArrayList<>(rows)));
+        }
+        return queryCache.put(key, tableName, generation, loaded(query("SELECT", cachedSql, paramSource, new RowMapperResultSetExtractor<>(rowMapper()))));
+    }
 
-        formatLog.add("")
-                .add(stopWatch.prettyPrint(TimeUnit.SECONDS).concat("-".repeat(42)))
-                .add(Utils.formatSql(sql, dto))
-                .add("-".repeat(42))
-                .add("query result size: " + result.size())
-                .add("-".repeat(42))
-        ;
-        log.debug(formatLog.toString());
+    /**
+     * 新加载的实体执行查询后置处理并按需记录快照
+     */
+    private List<T> loaded(List<T> result) {
+        if (!result.isEmpty()) {
+            after(result);
+        }
+        if (trackChanges || Configuration.SNAPSHOTS.isEnabled(resultClass)) {
+            Configuration.SNAPSHOTS.track(result);
+        }
         return result;
     }
 
+    /**
+     * 按 memoryBudget 读取：超出时返回 {@link SpillableList}，否则返回保存列值的 {@link QueryCache.Rows}
+     */
+    private List<T> spill(SqlCache.CachedSql cachedSql, SqlParameterSource paramSource) {
+        Example<DTO, T> example = copy().fetchSize(fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+        return example.query("SELECT", cachedSql, paramSource,
+                rs -> SpillableList.collect(rs, EntityRowMapper.plan(resultClass, rs.getMetaData(), objectMapper), memoryBudget));
+    }
+
+    /**
+     * 以只进游标逐行读取，调用方负责关闭返回的 Stream，查询后置处理按块执行
+     */
+    public Stream<T> stream() {
+        before();
+        Stream<T> rows = fanOut() ? shardedStream() : openStream();
+        if (!useAfter || Configuration.AFTER_QUERY.isEmpty() && afterQuery.isEmpty() && Configuration.HOOKS.after(resultClass).length == 0) {
+            return rows;
+        }
+        int chunkSize = fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE;
+        Iterator<T> iterator = rows.iterator();
+        Spliterator<List<T>> chunks = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super List<T>> action) {
+                List<T> chunk = nextChunk(iterator, chunkSize);
+                if (chunk.isEmpty()) {
+                    return false;
+                }
+                action.accept(chunk);
+                return true;
+            }
+        };
+        return StreamSupport.stream(chunks, false)
+                .onClose(rows::close)
+                .flatMap(List::stream);
+    }
+
+    public void forEach(Consumer<T> consumer) {
+        try (Stream<T> rows = stream()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    public void forEachChunk(int chunkSize, Consumer<List<T>> consumer) {
+        before();
+        try (Stream<T> rows = fanOut() ? shardedStream() : openStream()) {
+            Iterator<T> iterator = rows.iterator();
+            List<T> chunk;
+            while (!(chunk = nextChunk(iterator, chunkSize)).isEmpty()) {
+                consumer.accept(chunk);
+            }
+        }
+    }
+
+    public long exportTo(Path path, ExportFormat format) {
+        return exportTo(path, ExportOptions.of(format));
+    }
+
+    public long exportTo(Path path, ExportOptions options) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return exportTo(channel, options);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long exportTo(WritableByteChannel channel, ExportFormat format) {
+        return exportTo(channel, ExportOptions.of(format));
+    }
+
+    /**
+     * 以只进游标把查询结果直接编码写入通道，不映射实体，也不执行查询后置处理；不关闭通道。
+     * 分片扇出时按分片顺序依次导出，ORDER BY 与 LIMIT 只作用于单个分片
+     *
+     * @return 导出的行数
+     */
+    public long exportTo(WritableByteChannel channel, ExportOptions options) {
+        before();
+        if (!fanOut()) {
+            return export(channel, options);
+        }
+        long rows = 0;
+        ExportOptions shardOptions = options.copy();
+        for (Shard target : shardingRule.getShards()) {
+            long exported = rows;
+            if (Objects.nonNull(options.progress())) {
+                shardOptions.progress(count -> options.progress().accept(exported + count));
+            }
+            rows += pin(target, lastExpressions).export(channel, shardOptions);
+            shardOptions.header(false);
+        }
+        return rows;
+    }
+
+    private long export(WritableByteChannel channel, ExportOptions options) {
+        Example<DTO, T> example = copy().fetchSize(fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE);
+        return example.query("EXPORT", example.selectSql(), example.paramSource(), rs -> ResultSetExporter.export(rs, channel, options));
+    }
+
+    private List<T> nextChunk(Iterator<T> iterator, int chunkSize) {
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && iterator.hasNext()) {
+            chunk.add(iterator.next());
+        }
+        if (!chunk.isEmpty()) {
+            after(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * 各分片同时打开游标（事务外并发执行），按 ORDER BY 逐行归并
+     */
+    private Stream<T> shardedStream() {
+        OrderLimit orderLimit = OrderLimit.parse(lastExpressions);
+        List<Stream<T>> opened = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Stream<T>> streams;
+        try {
+            streams = fanOut(example -> {
+                Stream<T> stream = example.openStream();
+                synchronized (opened) {
+                    if (failed.get()) {
+                        stream.close();
+                    } else {
+                        opened.add(stream);
+                    }
+                }
+                return stream;
+            }, orderLimit.pushdown());
+        } catch (RuntimeException e) {
+            synchronized (opened) {
+                failed.set(true);
+                opened.forEach(Stream::close);
+            }
+            throw e;
+        }
+        Iterator<T> iterator = merge(streams.stream().map(Stream::iterator).toList(), orderLimit);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    private Stream<T> openStream() {
+        SqlCache.CachedSql cachedSql = selectSql();
+        log.debug("游标查询：{}{}{}", tableName, System.lineSeparator(), cachedSql.getSql());
+        int size = fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE;
+        SqlCache.Creator creator = cachedSql.creator(paramSource(), size);
+        Replica replica = replica();
+        if (Objects.isNull(replica)) {
+            return openStream(primary(), cachedSql, creator);
+        }
+        long start = System.nanoTime();
+        replica.begin();
+        try {
+            return openStream(replica.getJdbcOperations(), cachedSql, creator).onClose(() -> replica.end(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            replica.end(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private Stream<T> openStream(JdbcOperations jdbcOperations, SqlCache.CachedSql cachedSql, SqlCache.Creator creator) {
+        if (Configuration.QUERY_LISTENERS.isEmpty()) {
+            return jdbcOperations.queryForStream(creator, rowMapper());
+        }
+        long start = System.nanoTime();
+        Stream<T> rows;
+        try {
+            rows = jdbcOperations.queryForStream(creator, rowMapper());
+        } catch (RuntimeException e) {
+            publish("STREAM", cachedSql, creator.getBindNanos(), System.nanoTime() - start - creator.getBindNanos(), 0, 0, e);
+            throw e;
+        }
+        long opened = System.nanoTime();
+        LongAdder count = new LongAdder();
+        return rows.peek(row -> count.increment())
+                .onClose(() -> publish("STREAM", cachedSql, creator.getBindNanos(), opened - start - creator.getBindNanos(), System.nanoTime() - opened, count.sum(), null));
+    }
+
+    private RowMapper<T> rowMapper() {
+        return rowMapper(null);
+    }
+
+    /**
+     * @param excludedColumn 不映射到结果中的辅助列，实体按属性映射时本就会忽略
+     */
+    private RowMapper<T> rowMapper(String excludedColumn) {
+        if (EntityRowMapper.supports(resultClass)) {
+            return new EntityRowMapper<>(resultClass, objectMapper);
+        }
+        LowerCaseColumnMapRowMapper columnMapRowMapper = new LowerCaseColumnMapRowMapper();
+        return (rs, rowNum) -> {
+            Map<String, Object> row = columnMapRowMapper.mapRow(rs, rowNum);
+            if (Objects.nonNull(excludedColumn)) {
+                row.remove(excludedColumn);
+            }
+            return objectMapper.convertValue(row, resultClass);
+        };
+    }
+
+    private SqlCache.CachedSql selectSql() {
+        return sql(List.of("SELECT", tableName, resultClass, List.copyOf(firstExpressions), List.copyOf(selectExpressions), whereShape(), List.copyOf(lastExpressions)), () -> {
+            StringJoiner execSql = first();
+            execSql.add("SELECT");
+            if (selectExpressions.isEmpty()) {
+                List<String> extract = Utils.extract(resultClass);
+                if (extract.isEmpty()) {
+                    execSql.add("*");
+                } else {
+                    execSql.add(String.join(",", extract));
+                }
+            } else {
+                execSql.add(
+                        String.join(", ", selectExpressions)
+                );
+            }
+            execSql.add("FROM").add(tableName);
+            where(execSql);
+            return execSql.toString();
+        });
+    }
+
+    /**
+     * 未指定 set 时：DTO 若由记录快照的 list() 加载，只更新变化的列，没有变化则不访问数据库直接返回 true；
+     * 否则按 setAllNotNull/setAllIncludeNull 生成 SET
+     */
     public boolean update() {
-        StringJoiner execSql = before();
-        execSql.add("UPDATE")
-                .add(tableName)
-                .add("SET");
-        if (setExpressions.isEmpty()) {
+        before();
+        List<ColumnInfo> changed = setExpressions.isEmpty() && Configuration.SNAPSHOTS.isTracking(dto.getClass()) ? Configuration.SNAPSHOTS.changedColumns(dto) : null;
+        if (Objects.nonNull(changed) && changed.isEmpty()) {
+            return true;
+        }
+        boolean updated = Objects.nonNull(shardingRule) && Objects.isNull(shard)
+                ? fanOut(example -> example.update(changed), lastExpressions).contains(Boolean.TRUE)
+                : update(changed);
+        if (updated && Objects.nonNull(changed)) {
+            Configuration.SNAPSHOTS.track(dto);
+        }
+        return updated;
+    }
+
+    /**
+     * changed 为与快照相比变化的列，为 null 时按 set 或 setAllNotNull/setAllIncludeNull 生成 SET
+     */
+    private boolean update(List<ColumnInfo> changed) {
+        List<String> sets = new ArrayList<>(setExpressions);
+        if (Objects.nonNull(changed)) {
+            changed.forEach(columnInfo -> sets.add(
+                    "%s = :%s".formatted(columnInfo.getColumnName(), columnInfo.getFieldName())
+            ));
+        } else if (sets.isEmpty()) {
             List<ColumnInfo> columns = Utils.extractColumns(dto.getClass());
+            BeanAccessor accessor = Utils.accessor(dto.getClass());
             if (setAllNotNull && !setAllIncludeNull) {
                 columns.stream()
                         .filter(columnInfo -> {
                             String fieldName = columnInfo.getFieldName();
-                            Field field = ReflectionUtils.findField(dto.getClass(), fieldName);
-                            if (Objects.isNull(field)) {
-                                return false;
-                            }
-                            Object obj = ReflectionUtils.getField(field, dto);
-                            return Objects.nonNull(obj);
+                            return accessor.has(fieldName) && Objects.nonNull(accessor.get(dto, fieldName));
                         })
-                        .forEach(columnInfo -> setExpressions.add(
+                        .forEach(columnInfo -> sets.add(
                                 "%s = :%s".formatted(columnInfo.getColumnName(), columnInfo.getFieldName())
                         ));
 
             } else if (setAllIncludeNull) {
-                columns.forEach(columnInfo -> setExpressions.add(
+                columns.forEach(columnInfo -> sets.add(
                         "%s = :%s".formatted(columnInfo.getColumnName(), columnInfo.getFieldName())
                 ));
             }
         }
-        if (setExpressions.isEmpty()) {
+        if (sets.isEmpty()) {
             return false;
         }
-        execSql.add(String.join(", ", setExpressions));
-        if (!whereExpressions.isEmpty()) {
-            execSql.add("WHERE").add(toWhere());
-        }
-        if (!lastExpressions.isEmpty()) {
-            execSql.add(
-                    String.join(System.lineSeparator(), lastExpressions)
-            );
-        }
-        return update(execSql);
+        return update("UPDATE", sql(List.of("UPDATE", tableName, List.copyOf(firstExpressions), sets, whereShape(), List.copyOf(lastExpressions)), () -> {
+            StringJoiner execSql = first();
+            execSql.add("UPDATE")
+                    .add(tableName)
+                    .add("SET");
+            execSql.add(String.join(", ", sets));
+            where(execSql);
+            return execSql.toString();
+        }));
     }
 
     public boolean save() {
         if (!whereExpressions.isEmpty() && update()) {
             return true;
         }
-        StringJoiner execSql = before();
-        List<ColumnInfo> list = Utils.extractColumns(dto.getClass());
+        requireShard();
+        before();
+        return update("INSERT", sql(List.of("INSERT", tableName, dto.getClass(), List.copyOf(firstExpressions)), () -> {
+            StringJoiner execSql = first();
+            List<ColumnInfo> list = Utils.extractColumns(dto.getClass()).stream().filter(ColumnInfo::isInsertable).toList();
+
+            List<String> columns = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            list.forEach(columnInfo -> {
+                columns.add(columnInfo.getColumnName());
+                values.add(":".concat(columnInfo.getFieldName()));
+            });
+            execSql.add("INSERT INTO")
+                    .add(tableName)
+                    .add("(")
+                    .add(String.join(", ", columns))
+                    .add(")")
+                    .add("VALUES")
+                    .add("(")
+                    .add(String.join(", ", values))
+                    .add(")");
+            return execSql.toString();
+        }));
+    }
 
-        List<String> columns = new ArrayList<>();
-        List<String> values = new ArrayList<>();
-        list.forEach(columnInfo -> {
-            columns.add(columnInfo.getColumnName());
-            values.add(":".concat(columnInfo.getFieldName()));
-        });
-        execSql.add("INSERT INTO")
-                .add(tableName)
-                .add("(")
-                .add(String.join(", ", columns))
-                .add(")")
-                .add("VALUES")
-                .add("(")
-                .add(String.join(", ", values))
-                .add(")");
-        return update(execSql);
-    }
-
-    private boolean update(StringJoiner execSql) {
-        String sql = execSql.toString();
-        StopWatch stopWatch = new StopWatch("更新：%s".formatted(tableName));
-        stopWatch.start("执行SQL");
-        int update = namedParameterJdbcOperations.update(sql, new BeanPropertySqlParameterSource(dto));
-        StringJoiner formatLog = new StringJoiner(System.lineSeparator());
-        formatLog.add("")
-                .add(stopWatch.prettyPrint(TimeUnit.SECONDS).concat("-".repeat(42)))
-                .add(Utils.formatSql(sql, dto))
-                .add("-".repeat(42))
-                .add("update size: " + update)
-                .add("-".repeat(42))
-        ;
-        log.debug(formatLog.toString());
+    private boolean update(String operation, SqlCache.CachedSql cachedSql) {
+        SqlCache.Creator creator = cachedSql.creator(paramSource());
+        JdbcOperations jdbcOperations = primary();
+        long start = System.nanoTime();
+        int update;
+        try {
+            update = jdbcOperations.update(creator);
+        } catch (RuntimeException e) {
+            publish(operation, cachedSql, creator.getBindNanos(), System.nanoTime() - start - creator.getBindNanos(), 0, 0, e);
+            throw e;
+        } finally {
+            Configuration.QUERY_CACHE.invalidate(tableName);
+        }
+        publish(operation, cachedSql, creator.getBindNanos(), System.nanoTime() - start - creator.getBindNanos(), 0, update, null);
         return update != 0;
     }
 
+    private <R> R query(String operation, SqlCache.CachedSql cachedSql, SqlParameterSource paramSource, ResultSetExtractor<R> extractor) {
+        Replica replica = replica();
+        if (Objects.isNull(replica)) {
+            return query(primary(), operation, cachedSql, paramSource, extractor);
+        }
+        long start = System.nanoTime();
+        replica.begin();
+        try {
+            return query(replica.getJdbcOperations(), operation, cachedSql, paramSource, extractor);
+        } finally {
+            replica.end(System.nanoTime() - start);
+        }
+    }
+
+    private Replica replica() {
+        ReplicaRouter router = replicaRouter;
+        if (Objects.isNull(router) || Objects.nonNull(shard) && Objects.nonNull(shard.operations())) {
+            return null;
+        }
+        return router.route(forcePrimary);
+    }
+
+    private JdbcOperations primary() {
+        if (Objects.nonNull(shard) && Objects.nonNull(shard.operations())) {
+            return shard.operations().getJdbcOperations();
+        }
+        return namedParameterJdbcOperations.getJdbcOperations();
+    }
+
+    private <R> R query(JdbcOperations jdbcOperations, String operation, SqlCache.CachedSql cachedSql, SqlParameterSource paramSource, ResultSetExtractor<R> extractor) {
+        SqlCache.Creator creator = cachedSql.creator(paramSource, fetchSize).cancellation(cancellation);
+        if (Configuration.QUERY_LISTENERS.isEmpty() && !log.isDebugEnabled()) {
+            return jdbcOperations.query(creator, extractor);
+        }
+        long start = System.nanoTime();
+        long[] mappingNanos = {0};
+        R result;
+        try {
+            result = jdbcOperations.query(creator, rs -> {
+                long mappingStart = System.nanoTime();
+                try {
+                    return extractor.extractData(rs);
+                } finally {
+                    mappingNanos[0] = System.nanoTime() - mappingStart;
+                }
+            });
+        } catch (RuntimeException e) {
+            publish(operation, cachedSql, creator.getBindNanos(), System.nanoTime() - start - creator.getBindNanos() - mappingNanos[0], mappingNanos[0], 0, e);
+            throw e;
+        }
+        long rows = result instanceof Collection<?> collection ? collection.size()
+                : Objects.isNull(result) ? 0
+                : result.getClass().isArray() ? Array.getLength(result) : 1;
+        publish(operation, cachedSql, creator.getBindNanos(), System.nanoTime() - start - creator.getBindNanos() - mappingNanos[0], mappingNanos[0], rows, null);
+        return result;
+    }
+
+    private void publish(String operation, SqlCache.CachedSql cachedSql, long bindNanos, long executeNanos, long mappingNanos, long rows, Throwable error) {
+        if (log.isDebugEnabled()) {
+            log.debug(
+                    "{}：{} {}ms，行数 {}{}{}",
+                    operation,
+                    tableName,
+                    TimeUnit.NANOSECONDS.toMillis(bindNanos + executeNanos + mappingNanos),
+                    rows,
+                    System.lineSeparator(),
+                    Utils.formatSql(cachedSql.getSql(), dto)
+            );
+        }
+        if (Configuration.QUERY_LISTENERS.isEmpty()) {
+            return;
+        }
+        QueryEvent event = new QueryEvent(cachedSql.getId(), cachedSql.getSql(), tableName, operation, bindNanos, executeNanos, mappingNanos, rows, error);
+        for (QueryListener listener : Configuration.QUERY_LISTENERS) {
+            try {
+                listener.onQuery(event);
+            } catch (RuntimeException e) {
+                log.warn("查询监听器执行失败：{}", listener, e);
+            }
+        }
+    }
+
     public boolean delete() {
-        StringJoiner execSql = before();
-        execSql.add("DELETE FROM")
-                .add(tableName);
+        before();
         if (whereExpressions.isEmpty() && !deleteAll) {
             return false;
         }
+        if (Objects.nonNull(shardingRule) && Objects.isNull(shard)) {
+            return fanOut(Example::delete, lastExpressions).contains(Boolean.TRUE);
+        }
+        return update("DELETE", sql(List.of("DELETE", tableName, List.copyOf(firstExpressions), whereShape(), List.copyOf(lastExpressions)), () -> {
+            StringJoiner execSql = first();
+            execSql.add("DELETE FROM")
+                    .add(tableName);
+            where(execSql);
+            return execSql.toString();
+        }));
+    }
+
+    /**
+     * 从 CSV / JSON Lines 文件批量导入实体表，分片表不支持
+     */
+    public static <T> BulkLoader<T> loader(Class<T> entityClass) {
+        if (Objects.nonNull(Configuration.SHARDING.rule(entityClass))) {
+            throw new IllegalStateException("分片表 %s 不支持批量导入".formatted(entityClass.getName()));
+        }
+        return new BulkLoader<>(entityClass, namedParameterJdbcOperations.getJdbcOperations(), objectMapper);
+    }
+
+    public static <DTO> int[] saveAll(List<DTO> dtos) {
+        return saveAll(dtos, DEFAULT_BATCH_SIZE, false);
+    }
+
+    public static <DTO> int[] saveAll(List<DTO> dtos, int batchSize) {
+        return saveAll(dtos, batchSize, false);
+    }
+
+    /**
+     * 批量插入，multiValues 为 true 时每批拼成一条多行 VALUES 语句，此时单行影响行数无法区分，
+     * 整批成功记为 1，否则记为 {@link Statement#SUCCESS_NO_INFO}
+     */
+    public static <DTO> int[] saveAll(List<DTO> dtos, int batchSize, boolean multiValues) {
+        if (dtos.isEmpty()) {
+            return new int[0];
+        }
+        int[] sharded = shardedBatch(dtos, group -> saveAll(group, batchSize, multiValues));
+        if (Objects.nonNull(sharded)) {
+            return sharded;
+        }
+        Example<DTO, DTO> example = of(dtos.get(0));
+        example.before();
+        Class<?> dtoClass = example.dto.getClass();
+        List<ColumnInfo> columns = Utils.extractColumns(dtoClass).stream().filter(ColumnInfo::isInsertable).toList();
+        if (!multiValues) {
+            return example.batch(example.sql(List.of("INSERT", example.tableName, dtoClass, List.copyOf(example.firstExpressions)), () -> {
+                StringJoiner execSql = example.first();
+                execSql.add("INSERT INTO")
+                        .add(example.tableName)
+                        .add("(")
+                        .add(columns.stream().map(ColumnInfo::getColumnName).collect(Collectors.joining(", ")))
+                        .add(")")
+                        .add("VALUES")
+                        .add("(")
+                        .add(columns.stream().map(columnInfo -> ":".concat(columnInfo.getFieldName())).collect(Collectors.joining(", ")))
+                        .add(")");
+                return execSql.toString();
+            }), dtos, batchSize);
+        }
+        int[] result = new int[dtos.size()];
+        for (int from = 0; from < dtos.size(); from += batchSize) {
+            List<DTO> chunk = dtos.subList(from, Math.min(from + batchSize, dtos.size()));
+            SqlCache.CachedSql cachedSql = example.sql(List.of("INSERT_VALUES", example.tableName, dtoClass, List.copyOf(example.firstExpressions), chunk.size()), () -> {
+                String row = columns.stream().map(columnInfo -> "?").collect(Collectors.joining(", ", "(", ")"));
+                StringJoiner execSql = example.first();
+                execSql.add("INSERT INTO")
+                        .add(example.tableName)
+                        .add("(")
+                        .add(columns.stream().map(ColumnInfo::getColumnName).collect(Collectors.joining(", ")))
+                        .add(")")
+                        .add("VALUES")
+                        .add(String.join(", ", Collections.nCopies(chunk.size(), row)));
+                return execSql.toString();
+            });
+            Object[] args = new Object[chunk.size() * columns.size()];
+            int index = 0;
+            for (DTO item : chunk) {
+                AccessorSqlParameterSource paramSource = new AccessorSqlParameterSource(item);
+                for (ColumnInfo columnInfo : columns) {
+                    String fieldName = columnInfo.getFieldName();
+                    args[index++] = new SqlParameterValue(paramSource.getSqlType(fieldName), paramSource.getValue(fieldName));
+                }
+            }
+            long start = System.nanoTime();
+            int update;
+            try {
+                update = example.primary().update(cachedSql.getSql(), args);
+            } catch (RuntimeException e) {
+                example.publish("BATCH", cachedSql, 0, System.nanoTime() - start, 0, 0, e);
+                throw e;
+            } finally {
+                Configuration.QUERY_CACHE.invalidate(example.tableName);
+            }
+            example.publish("BATCH", cachedSql, 0, System.nanoTime() - start, 0, update, null);
+            Arrays.fill(result, from, from + chunk.size(), update == chunk.size() ? 1 : Statement.SUCCESS_NO_INFO);
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    public static <DTO> int[] updateAll(List<DTO> dtos, ColumnFunction<DTO, ?>... keys) {
+        return updateAll(dtos, DEFAULT_BATCH_SIZE, keys);
+    }
+
+    /**
+     * 按主键批量更新，除主键外的可更新列全部写入（包括 null）
+     */
+    @SafeVarargs
+    public static <DTO> int[] updateAll(List<DTO> dtos, int batchSize, ColumnFunction<DTO, ?>... keys) {
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("批量更新至少需要一个主键列");
+        }
+        if (dtos.isEmpty()) {
+            return new int[0];
+        }
+        int[] sharded = shardedBatch(dtos, group -> updateAll(group, batchSize, keys));
+        if (Objects.nonNull(sharded)) {
+            return sharded;
+        }
+        Example<DTO, DTO> example = of(dtos.get(0));
+        example.before();
+        Class<?> dtoClass = example.dto.getClass();
+        List<ColumnInfo> keyColumns = Stream.of(keys).map(Utils::extractColumn).toList();
+        List<ColumnInfo> columns = Utils.extractColumns(dtoClass).stream()
+                .filter(ColumnInfo::isUpdatable)
+                .filter(columnInfo -> keyColumns.stream().noneMatch(key -> key.getFieldName().equals(columnInfo.getFieldName())))
+                .toList();
+        List<String> sets = columns.stream().map(columnInfo -> "%s = :%s".formatted(columnInfo.getColumnName(), columnInfo.getFieldName())).toList();
+        List<String> wheres = keyColumns.stream().map(columnInfo -> "%s = :%s".formatted(columnInfo.getColumnName(), columnInfo.getFieldName())).toList();
+        return example.batch(example.sql(List.of("UPDATE", example.tableName, List.copyOf(example.firstExpressions), sets, wheres, List.of()), () -> {
+            StringJoiner execSql = example.first();
+            execSql.add("UPDATE")
+                    .add(example.tableName)
+                    .add("SET")
+                    .add(String.join(", ", sets))
+                    .add("WHERE")
+                    .add(String.join(" AND ", wheres));
+            return execSql.toString();
+        }), dtos, batchSize);
+    }
+
+    /**
+     * 单条语句完成插入或更新，未指定主键列时使用 {@link jakarta.persistence.Id} 标注的字段
+     */
+    @SafeVarargs
+    public final boolean upsert(ColumnFunction<DTO, ?>... keys) {
+        requireShard();
+        before();
+        return update("UPSERT", upsertSql(dto.getClass(), keys));
+    }
+
+    @SafeVarargs
+    public static <DTO> int[] upsertAll(List<DTO> dtos, ColumnFunction<DTO, ?>... keys) {
+        return upsertAll(dtos, DEFAULT_BATCH_SIZE, keys);
+    }
+
+    @SafeVarargs
+    public static <DTO> int[] upsertAll(List<DTO> dtos, int batchSize, ColumnFunction<DTO, ?>... keys) {
+        if (dtos.isEmpty()) {
+            return new int[0];
+        }
+        int[] sharded = shardedBatch(dtos, group -> upsertAll(group, batchSize, keys));
+        if (Objects.nonNull(sharded)) {
+            return sharded;
+        }
+        Example<DTO, DTO> example = of(dtos.get(0));
+        example.requireShard();
+        example.before();
+        return example.batch(example.upsertSql(example.dto.getClass(), keys), dtos, batchSize);
+    }
+
+    private SqlCache.CachedSql upsertSql(Class<?> dtoClass, ColumnFunction<DTO, ?>[] keys) {
+        List<ColumnInfo> columns = Utils.extractColumns(dtoClass);
+        List<ColumnInfo> keyColumns = keys.length == 0
+                ? columns.stream().filter(ColumnInfo::isId).toList()
+                : Stream.of(keys).map(Utils::extractColumn).toList();
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("%s 没有可用于 upsert 的主键列".formatted(dtoClass.getName()));
+        }
+        List<String> keyFields = keyColumns.stream().map(ColumnInfo::getFieldName).toList();
+        Dialect currentDialect = dialect();
+        return sql(List.of("UPSERT", tableName, dtoClass, List.copyOf(firstExpressions), keyFields, currentDialect.getClass()), () -> {
+            List<ColumnInfo> insertColumns = columns.stream()
+                    .filter(columnInfo -> columnInfo.isInsertable() || keyFields.contains(columnInfo.getFieldName()))
+                    .toList();
+            List<ColumnInfo> updateColumns = columns.stream()
+                    .filter(ColumnInfo::isUpdatable)
+                    .filter(columnInfo -> !keyFields.contains(columnInfo.getFieldName()))
+                    .toList();
+            StringJoiner execSql = first();
+            execSql.add(currentDialect.upsert(tableName, insertColumns, keyColumns, updateColumns));
+            return execSql.toString();
+        });
+    }
+
+    public static Dialect dialect() {
+        Dialect current = dialect;
+        if (Objects.isNull(current)) {
+            String databaseProductName = namedParameterJdbcOperations.getJdbcOperations()
+                    .execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            current = Dialect.of(Objects.requireNonNull(databaseProductName));
+            dialect = current;
+        }
+        return current;
+    }
+
+    private int[] batch(SqlCache.CachedSql cachedSql, List<?> dtos, int batchSize) {
+        int[] result = new int[dtos.size()];
+        for (int from = 0; from < dtos.size(); from += batchSize) {
+            List<?> chunk = dtos.subList(from, Math.min(from + batchSize, dtos.size()));
+            SqlParameterSource[] batchArgs = chunk.stream().map(AccessorSqlParameterSource::new).toArray(SqlParameterSource[]::new);
+            long start = System.nanoTime();
+            int[] update;
+            try {
+                update = cachedSql.batchUpdate(primary(), batchArgs);
+            } catch (RuntimeException e) {
+                publish("BATCH", cachedSql, 0, System.nanoTime() - start, 0, 0, e);
+                throw e;
+            } finally {
+                Configuration.QUERY_CACHE.invalidate(tableName);
+            }
+            publish("BATCH", cachedSql, 0, System.nanoTime() - start, 0, IntStream.of(update).map(count -> Math.max(count, 1)).sum(), null);
+            System.arraycopy(update, 0, result, from, update.length);
+        }
+        return result;
+    }
+
+    private boolean fanOut() {
+        return Objects.nonNull(shardingRule) && !shardPinned;
+    }
+
+    /**
+     * 下发到单个分片的副本，前后置处理已由当前实例执行
+     */
+    private Example<DTO, T> pin(Shard target, List<String> last) {
+        Example<DTO, T> example = copy().useBefore(false).useAfter(false);
+        example.lastExpressions.clear();
+        example.lastExpressions.addAll(last);
+        example.shard = target;
+        example.shardPinned = true;
+        example.tableName = target.tableName();
+        return example;
+    }
+
+    /**
+     * 在所有分片上执行，事务中顺序执行，否则并发执行
+     */
+    private <R> List<R> fanOut(Function<Example<DTO, T>, R> action, List<String> last) {
+        List<Supplier<? extends R>> tasks = new ArrayList<>();
+        for (Shard target : shardingRule.getShards()) {
+            Example<DTO, T> example = pin(target, last);
+            tasks.add(() -> action.apply(example));
+        }
+        if (tasks.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            List<R> results = new ArrayList<>(tasks.size());
+            tasks.forEach(task -> results.add(task.get()));
+            return results;
+        }
+        return Queries.all(executor, tasks);
+    }
+
+    private Iterator<T> merge(List<Iterator<T>> sources, OrderLimit orderLimit) {
+        Iterator<T> merged = new MergingIterator<>(sources, orderLimit.comparator(resultClass));
+        for (long i = 0; i < orderLimit.getOffset() && merged.hasNext(); i++) {
+            merged.next();
+        }
+        if (orderLimit.getLimit() < 0) {
+            return merged;
+        }
+        long limit = orderLimit.getLimit();
+        return new Iterator<>() {
+            private long count;
+
+            @Override
+            public boolean hasNext() {
+                return count < limit && merged.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                count++;
+                return merged.next();
+            }
+        };
+    }
+
+    private void requireShard() {
+        if (Objects.nonNull(shardingRule) && Objects.isNull(shard)) {
+            throw new IllegalStateException("%s 的分片键 %s 为空，无法确定写入的分片".formatted(resultClass.getName(), shardingRule.getKeyField()));
+        }
+    }
+
+    /**
+     * 按分片键把批量写入拆分到各分片，全部落在同一分片或实体未分片时返回 null
+     */
+    private static <DTO> int[] shardedBatch(List<DTO> dtos, Function<List<DTO>, int[]> action) {
+        ShardingRule rule = Configuration.SHARDING.rule(dtos.get(0).getClass());
+        if (Objects.isNull(rule)) {
+            return null;
+        }
+        Map<Shard, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            Shard target = rule.route(dtos.get(i));
+            if (Objects.isNull(target)) {
+                throw new IllegalStateException("%s 的分片键 %s 为空，无法确定写入的分片".formatted(rule.getEntityClass().getName(), rule.getKeyField()));
+            }
+            groups.computeIfAbsent(target, key -> new ArrayList<>()).add(i);
+        }
+        if (groups.size() == 1) {
+            return null;
+        }
+        int[] result = new int[dtos.size()];
+        for (List<Integer> indexes : groups.values()) {
+            int[] counts = action.apply(indexes.stream().map(dtos::get).toList());
+            for (int i = 0; i < counts.length; i++) {
+                result[indexes.get(i)] = counts[i];
+            }
+        }
+        return result;
+    }
+
+    private void after(List<?> rows) {
+        if (useAfter) {
+            Configuration.AFTER_QUERY.forEach(consumer -> consumer.accept(rows, resultClass));
+            for (Consumer<List<?>> consumer : Configuration.HOOKS.after(resultClass)) {
+                consumer.accept(rows);
+            }
+            afterQuery.forEach(consumer -> consumer.accept(rows));
+        }
+    }
+
+    private SqlCache.CachedSql sql(List<Object> shape, Supplier<String> sqlSupplier) {
+        return Configuration.SQL_CACHE.get(shape, sqlSupplier);
+    }
+
+    private void where(StringJoiner execSql) {
         if (!whereExpressions.isEmpty()) {
             execSql.add("WHERE").add(toWhere());
         }
@@ -618,14 +2174,19 @@ public class Example<DTO, T> implements Serializable {
                     String.join(System.lineSeparator(), lastExpressions)
             );
         }
-        return update(execSql);
     }
 
-    private StringJoiner before() {
+    private void before() {
         if (useBefore) {
             Configuration.BEFORE_QUERY.forEach(consumer -> consumer.accept(this, resultClass));
+            for (Consumer<Example<?, ?>> consumer : Configuration.HOOKS.before(resultClass)) {
+                consumer.accept(this);
+            }
             beforeQuery.forEach(consumer -> consumer.accept(this));
         }
+    }
+
+    private StringJoiner first() {
         StringJoiner execSql = new StringJoiner(" ");
         if (!firstExpressions.isEmpty()) {
             execSql.add(
@@ -652,10 +2213,29 @@ public class Example<DTO, T> implements Serializable {
         copy.lastExpressions.addAll(this.lastExpressions);
         copy.selectExpressions.addAll(this.selectExpressions);
         copy.whereExpressions.addAll(this.whereExpressions);
+        copy.parameters.putAll(this.parameters);
+        copy.inStrategies.putAll(this.inStrategies);
+        copy.inStrategy = this.inStrategy;
+        copy.inChunkSize = this.inChunkSize;
         copy.beforeQuery.addAll(beforeQuery);
         copy.afterQuery.addAll(afterQuery);
         copy.useBefore = this.useBefore;
         copy.useAfter = this.useAfter;
+        copy.fetchSize = this.fetchSize;
+        copy.cacheable = this.cacheable;
+        copy.trackChanges = this.trackChanges;
+        copy.forcePrimary = this.forcePrimary;
+        copy.setExpressions.addAll(this.setExpressions);
+        copy.setAllNotNull = this.setAllNotNull;
+        copy.setAllIncludeNull = this.setAllIncludeNull;
+        copy.deleteAll = this.deleteAll;
+        copy.shardingRule = this.shardingRule;
+        copy.shard = this.shard;
+        copy.shardPinned = this.shardPinned;
+        copy.countStrategy = this.countStrategy;
+        copy.estimateThreshold = this.estimateThreshold;
+        copy.memoryBudget = this.memoryBudget;
+        copy.cancellation = this.cancellation;
         copy.tableName = tableName;
         return copy;
     }
@@ -0,0 +1,25 @@
+package io.github.codert96.orm.core;
+
+public enum InStrategy {
+    /**
+     * 由 Spring 展开为与集合大小相同个数的占位符
+     */
+    EXPAND,
+
+    /**
+     * 整个集合绑定为一个数组参数（col = ANY(?)），生成 SQL 时按方言判断，数据库不支持时退化为 PADDED
+     */
+    ARRAY,
+
+    /**
+     * 集合补齐到 2 的幂大小（重复最后一个元素），减少不同的语句文本
+     */
+    PADDED,
+
+    /**
+     * 超过 inChunkSize 时拆分为多次查询并合并结果，每批按 PADDED 绑定。
+     * list() 各批下推 ORDER BY 与 LIMIT + OFFSET，按 ORDER BY 归并后统一截取；count()、exists() 与聚合按批合并，
+     * 带 last() 的 groupBy 不支持；用于 notIn 时等同 PADDED
+     */
+    CHUNKED
+}
@@ -17,6 +17,11 @@ public class Page<T> implements Serializable {
 
     protected long total = 0;
 
+    /**
+     * total 是否为执行计划估算值
+     */
+    protected boolean approximate = false;
+
     protected List<T> records = new ArrayList<>();
 
 
@@ -0,0 +1,59 @@
+package io.github.codert96.orm.core;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 并发执行多个互不依赖的查询，任一失败立即取消其余任务并抛出该异常
+ */
+@UtilityClass
+public class Queries {
+
+    @SafeVarargs
+    public <R> List<R> all(Supplier<? extends R>... tasks) {
+        return all(Example.getExecutor(), List.of(tasks));
+    }
+
+    public <R> List<R> all(Executor executor, List<Supplier<? extends R>> tasks) {
+        List<CompletableFuture<? extends R>> futures = new ArrayList<>(tasks.size());
+        for (Supplier<? extends R> task : tasks) {
+            futures.add(CompletableFuture.supplyAsync(task, executor));
+        }
+        try {
+            failFast(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        futures.forEach(future -> results.add(future.join()));
+        return results;
+    }
+
+    /**
+     * 与 {@link CompletableFuture#allOf} 相同，但任一失败时立即以该异常完成并取消其余任务。
+     * 取消只能阻止尚未开始的任务，已在执行的查询不会被中断
+     */
+    public CompletableFuture<Void> failFast(CompletableFuture<?>... futures) {
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures);
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((result, error) -> {
+                if (Objects.nonNull(error) && all.completeExceptionally(error)) {
+                    for (CompletableFuture<?> other : futures) {
+                        other.cancel(true);
+                    }
+                }
+            });
+        }
+        return all;
+    }
+}
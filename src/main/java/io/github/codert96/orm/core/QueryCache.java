@@ -0,0 +1,275 @@
+package io.github.codert96.orm.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 查询结果缓存，按 SQL 与绑定参数缓存，LRU + TTL 淘汰。
+ * 同一张表上的写操作会让该表的缓存整体失效（事务中的写在事务结束后再失效一次）
+ */
+public class QueryCache {
+    private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final Set<Class<?>> enabledClasses = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private long rows;
+
+    @Getter
+    @Setter
+    private volatile int maxSize;
+
+    @Getter
+    @Setter
+    private volatile Duration ttl;
+
+    @Getter
+    @Setter
+    private volatile Policy policy = Policy.IMMUTABLE;
+
+    public QueryCache(int maxSize, Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    public enum Policy {
+        /**
+         * 命中与未命中都返回只读列表，所有调用方共享其中的实体，不应修改
+         */
+        IMMUTABLE,
+
+        /**
+         * 命中与未命中都返回新的可变列表：实体与 record 结果按缓存的列值重新创建，并重新执行查询后置处理；
+         * Map 结果逐个复制，其它结果只复制列表
+         */
+        COPY
+    }
+
+    /**
+     * 对该结果类型的所有查询启用缓存
+     */
+    public void enable(Class<?> resultClass) {
+        enabledClasses.add(resultClass);
+    }
+
+    public void disable(Class<?> resultClass) {
+        enabledClasses.remove(resultClass);
+    }
+
+    public boolean isEnabled(Class<?> resultClass) {
+        return !enabledClasses.isEmpty() && enabledClasses.contains(resultClass);
+    }
+
+    public Object key(Object type, SqlCache.CachedSql cachedSql, SqlParameterSource paramSource) {
+        Object[] values = NamedParameterUtils.buildValueArray(cachedSql.getParsedSql(), paramSource, null);
+        List<Object> key = new ArrayList<>(values.length + 2);
+        key.add(type);
+        key.add(cachedSql.getSql());
+        for (Object value : values) {
+            if (value instanceof SqlParameterValue parameterValue) {
+                value = parameterValue.getValue();
+            }
+            if (value instanceof Example.ArrayValue arrayValue) {
+                value = arrayValue.values();
+            }
+            if (Objects.nonNull(value) && value.getClass().isArray()) {
+                value = Arrays.deepToString(new Object[]{value});
+            }
+            key.add(value);
+        }
+        return key;
+    }
+
+    /**
+     * 在执行查询前取得，写入缓存时用于判断查询期间表是否被修改
+     */
+    public long generation(String tableName) {
+        return generations.computeIfAbsent(tableName, name -> new AtomicLong()).get();
+    }
+
+    public Object get(Object key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (Objects.nonNull(entry) && (entry.expiresAt < System.nanoTime() || entry.generation != generation(entry.tableName))) {
+                remove(key);
+                entry = null;
+            }
+        }
+        if (Objects.isNull(entry)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value instanceof List<?> list && !(list instanceof Rows<?>) && policy == Policy.COPY ? copy(list) : entry.value;
+    }
+
+    /**
+     * 事务中读取的结果可能包含未提交的数据，不写入缓存
+     *
+     * @return 应返回给调用方的结果；value 为 {@link Rows} 时原样返回，由调用方创建实体
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R put(Object key, String tableName, long generation, R value) {
+        Object stored = value instanceof Rows<?> ? value
+                : value instanceof List<?> list ? Collections.unmodifiableList(policy == Policy.COPY ? copy(list) : new ArrayList<>(list))
+                : value;
+        if (maxSize > 0 && generation == generation(tableName) && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            synchronized (entries) {
+                remove(key);
+                entries.put(key, new Entry(stored, tableName, generation, System.nanoTime() + ttl.toNanos(), size(stored)));
+                rows += size(stored);
+                Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+                while (entries.size() > maxSize && iterator.hasNext()) {
+                    rows -= iterator.next().getValue().rows;
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        return policy == Policy.IMMUTABLE ? (R) stored : value;
+    }
+
+    public void invalidate(String tableName) {
+        generations.computeIfAbsent(tableName, name -> new AtomicLong()).incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    generations.computeIfAbsent(tableName, name -> new AtomicLong()).incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            rows = 0;
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 当前缓存的结果总行数，用于估算内存占用
+     */
+    public long rows() {
+        synchronized (entries) {
+            return rows;
+        }
+    }
+
+    private void remove(Object key) {
+        Entry removed = entries.remove(key);
+        if (Objects.nonNull(removed)) {
+            rows -= removed.rows;
+        }
+    }
+
+    private static int size(Object value) {
+        return value instanceof Collection<?> collection ? collection.size() : 1;
+    }
+
+    private static List<Object> copy(List<?> list) {
+        List<Object> copy = new ArrayList<>(list.size());
+        for (Object element : list) {
+            copy.add(element instanceof Map<?, ?> map ? new LinkedHashMap<>(map) : element);
+        }
+        return copy;
+    }
+
+    /**
+     * COPY 策略下缓存的实体列值，每次读取元素都创建新的实体
+     */
+    public static final class Rows<T> extends AbstractList<T> implements RandomAccess {
+        private final EntityRowMapper.Plan<T> plan;
+
+        private final List<Object[]> values;
+
+        Rows(EntityRowMapper.Plan<T> plan, List<Object[]> values) {
+            this.plan = plan;
+            this.values = values;
+        }
+
+        public static <T> Rows<T> read(ResultSet rs, Class<T> resultClass, ObjectMapper objectMapper) throws SQLException {
+            EntityRowMapper.Plan<T> plan = EntityRowMapper.plan(resultClass, rs.getMetaData(), objectMapper);
+            List<Object[]> values = new ArrayList<>();
+            while (rs.next()) {
+                values.add(plan.read(rs));
+            }
+            return new Rows<>(plan, values);
+        }
+
+        @Override
+        public T get(int index) {
+            Object[] row = values.get(index).clone();
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] instanceof byte[] bytes) {
+                    row[i] = bytes.clone();
+                } else if (row[i] instanceof Date date) {
+                    row[i] = date.clone();
+                }
+            }
+            return plan.create(row);
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Entry {
+        private final Object value;
+        private final String tableName;
+        private final long generation;
+        private final long expiresAt;
+        private final int rows;
+    }
+}
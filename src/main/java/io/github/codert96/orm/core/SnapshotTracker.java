@@ -0,0 +1,163 @@
+package io.github.codert96.orm.core;
+
+import io.github.codert96.orm.utils.BeanAccessor;
+import io.github.codert96.orm.utils.Utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录 list() 加载的实体的原始列值，update() 据此只更新发生变化的列。
+ * 以实体对象的身份（而非 equals）为键，实体被回收后快照随之清理
+ */
+public class SnapshotTracker {
+    private final Map<IdentityReference, Object[]> snapshots = new HashMap<>();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+    private final Set<Class<?>> enabledClasses = ConcurrentHashMap.newKeySet();
+
+    private final Set<Class<?>> trackedClasses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 对该实体类型的所有 list() 结果记录快照
+     */
+    public void enable(Class<?> entityClass) {
+        enabledClasses.add(entityClass);
+    }
+
+    public void disable(Class<?> entityClass) {
+        enabledClasses.remove(entityClass);
+    }
+
+    public boolean isEnabled(Class<?> entityClass) {
+        return !enabledClasses.isEmpty() && enabledClasses.contains(entityClass);
+    }
+
+    /**
+     * 该实体类型是否可能有快照，不加锁，用于 update() 跳过快照查找
+     */
+    public boolean isTracking(Class<?> entityClass) {
+        return !trackedClasses.isEmpty() && trackedClasses.contains(entityClass) || isEnabled(entityClass);
+    }
+
+    public void track(Collection<?> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        List<Object[]> values = entities.stream().map(SnapshotTracker::capture).toList();
+        for (Object entity : entities) {
+            trackedClasses.add(entity.getClass());
+        }
+        synchronized (snapshots) {
+            expunge();
+            Iterator<Object[]> iterator = values.iterator();
+            for (Object entity : entities) {
+                snapshots.put(new IdentityReference(entity, queue), iterator.next());
+            }
+        }
+    }
+
+    public void track(Object entity) {
+        track(List.of(entity));
+    }
+
+    public void forget(Object entity) {
+        synchronized (snapshots) {
+            snapshots.remove(new IdentityReference(entity, null));
+        }
+    }
+
+    public boolean isTracked(Object entity) {
+        synchronized (snapshots) {
+            return snapshots.containsKey(new IdentityReference(entity, null));
+        }
+    }
+
+    /**
+     * 与快照相比发生变化的可更新列（不含主键），未记录快照时返回 null
+     */
+    public List<ColumnInfo> changedColumns(Object entity) {
+        Object[] snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(new IdentityReference(entity, null));
+        }
+        if (Objects.isNull(snapshot)) {
+            return null;
+        }
+        List<ColumnInfo> columns = Utils.extractColumns(entity.getClass());
+        BeanAccessor accessor = Utils.accessor(entity.getClass());
+        List<ColumnInfo> changed = new ArrayList<>();
+        for (int i = 0; i < columns.size() && i < snapshot.length; i++) {
+            ColumnInfo columnInfo = columns.get(i);
+            if (columnInfo.isId() || !columnInfo.isUpdatable() || !accessor.has(columnInfo.getFieldName())) {
+                continue;
+            }
+            if (!Objects.deepEquals(snapshot[i], accessor.get(entity, columnInfo.getFieldName()))) {
+                changed.add(columnInfo);
+            }
+        }
+        return changed;
+    }
+
+    public int size() {
+        synchronized (snapshots) {
+            expunge();
+            return snapshots.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (snapshots) {
+            snapshots.clear();
+        }
+    }
+
+    private static Object[] capture(Object entity) {
+        List<ColumnInfo> columns = Utils.extractColumns(entity.getClass());
+        BeanAccessor accessor = Utils.accessor(entity.getClass());
+        Object[] values = new Object[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            String fieldName = columns.get(i).getFieldName();
+            Object value = accessor.has(fieldName) ? accessor.get(entity, fieldName) : null;
+            values[i] = value instanceof byte[] bytes ? bytes.clone() : value;
+        }
+        return values;
+    }
+
+    private void expunge() {
+        Reference<?> reference;
+        while (Objects.nonNull(reference = queue.poll())) {
+            snapshots.remove(reference);
+        }
+    }
+
+    private static final class IdentityReference extends WeakReference<Object> {
+        private final int hash;
+
+        private IdentityReference(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityReference other)) {
+                return false;
+            }
+            Object referent = get();
+            return Objects.nonNull(referent) && referent == other.get();
+        }
+    }
+}
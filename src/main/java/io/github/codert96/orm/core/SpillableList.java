@@ -0,0 +1,472 @@
+package io.github.codert96.orm.core;
+
+import java.io.*;
+import java.lang.ref.Cleaner;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+/**
+ * 写入内存映射临时文件的只读查询结果，get() 时才解码并创建对象，对象不被列表持有。
+ * <p>
+ * 每行按属性槽位依次写入 1 字节类型标记与紧凑的值；行偏移保存在堆内 long 数组中。
+ * 文件按不超过 1GB 的段映射，调用 {@link #close()} 或列表被回收后删除临时文件
+ */
+public final class SpillableList<T> extends AbstractList<T> implements RandomAccess, AutoCloseable {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte SHORT = 3;
+    private static final byte BYTE = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte TRUE = 7;
+    private static final byte FALSE = 8;
+    private static final byte STRING = 9;
+    private static final byte BIG_DECIMAL = 10;
+    private static final byte BIG_INTEGER = 11;
+    private static final byte LOCAL_DATE = 12;
+    private static final byte LOCAL_DATE_TIME = 13;
+    private static final byte LOCAL_TIME = 14;
+    private static final byte OFFSET_DATE_TIME = 15;
+    private static final byte INSTANT = 16;
+    private static final byte TIMESTAMP = 17;
+    private static final byte SQL_DATE = 18;
+    private static final byte DATE = 19;
+    private static final byte BYTES = 20;
+    private static final byte CHAR = 21;
+    private static final byte UUID_VALUE = 22;
+    private static final byte ENUM = 23;
+    private static final byte SERIALIZED = 24;
+
+    private final EntityRowMapper.Plan<T> plan;
+
+    private final long[] offsets;
+
+    private final int size;
+
+    private final int slotCount;
+
+    private final Object[][] enumConstants;
+
+    private final int[] segmentRows;
+
+    private final MappedByteBuffer[] segments;
+
+    private final long[] segmentOffsets;
+
+    private final Resources resources;
+
+    private final Cleaner.Cleanable cleanable;
+
+    private SpillableList(EntityRowMapper.Plan<T> plan, Writer writer) throws IOException {
+        this.plan = plan;
+        this.size = writer.size;
+        this.offsets = Arrays.copyOf(writer.offsets, size + 1);
+        this.offsets[size] = writer.position;
+        this.slotCount = writer.slotCount;
+        this.enumConstants = new Object[slotCount][];
+        for (int i = 0; i < slotCount; i++) {
+            if (Objects.nonNull(writer.enumTypes[i])) {
+                enumConstants[i] = writer.enumTypes[i].getEnumConstants();
+            }
+        }
+        List<Integer> rows = new ArrayList<>();
+        List<MappedByteBuffer> buffers = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        int first = 0;
+        while (first < size) {
+            long start = offsets[first];
+            int end = first + 1;
+            while (end < size && offsets[end + 1] - start <= SEGMENT_SIZE) {
+                end++;
+            }
+            if (offsets[end] - start > Integer.MAX_VALUE) {
+                throw new IllegalStateException("单行超过 %s 字节，无法映射".formatted(Integer.MAX_VALUE));
+            }
+            rows.add(first);
+            starts.add(start);
+            buffers.add(writer.channel.map(FileChannel.MapMode.READ_ONLY, start, offsets[end] - start));
+            first = end;
+        }
+        this.segmentRows = rows.stream().mapToInt(Integer::intValue).toArray();
+        this.segmentOffsets = starts.stream().mapToLong(Long::longValue).toArray();
+        this.segments = buffers.toArray(MappedByteBuffer[]::new);
+        this.resources = writer.resources;
+        this.cleanable = CLEANER.register(this, resources);
+    }
+
+    /**
+     * 读取结果集全部行：估算的内存占用不超过 budget 时返回保存列值的 {@link QueryCache.Rows}（每次 get() 创建新对象），
+     * 否则写入临时文件后返回 SpillableList
+     */
+    public static <T> List<T> collect(ResultSet rs, EntityRowMapper.Plan<T> plan, long budget) throws SQLException {
+        if (budget < 0) {
+            throw new IllegalArgumentException("budget 不能小于 0");
+        }
+        List<Object[]> rows = new ArrayList<>();
+        long estimated = 0;
+        while (estimated <= budget) {
+            if (!rs.next()) {
+                return new QueryCache.Rows<>(plan, rows);
+            }
+            Object[] values = plan.read(rs);
+            estimated += estimate(values);
+            rows.add(values);
+        }
+        Writer writer = null;
+        try {
+            writer = new Writer(rows.get(0).length);
+            for (Object[] row : rows) {
+                writer.write(row);
+            }
+            rows = null;
+            while (rs.next()) {
+                writer.write(plan.read(rs));
+            }
+            writer.flush();
+            return new SpillableList<>(plan, writer);
+        } catch (IOException e) {
+            if (Objects.nonNull(writer)) {
+                writer.resources.run();
+            }
+            throw new UncheckedIOException(e);
+        } catch (SQLException | RuntimeException e) {
+            if (Objects.nonNull(writer)) {
+                writer.resources.run();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        if (resources.closed) {
+            throw new IllegalStateException("SpillableList 已关闭");
+        }
+        int segment = Arrays.binarySearch(segmentRows, index);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+        Reader reader = new Reader(segments[segment], (int) (offsets[index] - segmentOffsets[segment]));
+        Object[] values = new Object[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            values[i] = reader.value(enumConstants[i]);
+        }
+        return plan.create(values);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 临时文件占用的字节数
+     */
+    public long fileSize() {
+        return offsets[size];
+    }
+
+    public boolean isClosed() {
+        return resources.closed;
+    }
+
+    @Override
+    public void close() {
+        cleanable.clean();
+    }
+
+    private static long estimate(Object[] values) {
+        long bytes = 16 + 4L * values.length;
+        for (Object value : values) {
+            if (value instanceof String string) {
+                bytes += 40 + string.length();
+            } else if (value instanceof byte[] array) {
+                bytes += 16 + array.length;
+            } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+                bytes += 40;
+            } else if (Objects.nonNull(value) && !(value instanceof Enum<?>) && !(value instanceof Boolean)) {
+                bytes += 24;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 临时文件与通道，不引用列表本身，供 Cleaner 在列表被回收后执行
+     */
+    private static final class Resources implements Runnable {
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private volatile boolean closed;
+
+        private Resources(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final class Writer {
+        private final int slotCount;
+
+        private final Class<?>[] enumTypes;
+
+        private final FileChannel channel;
+
+        private final Resources resources;
+
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private long[] offsets = new long[1024];
+
+        private int size;
+
+        private long position;
+
+        private Writer(int slotCount) throws IOException {
+            this.slotCount = slotCount;
+            this.enumTypes = new Class<?>[slotCount];
+            Path path = Files.createTempFile("orm-spill-", ".bin");
+            try {
+                this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                Files.deleteIfExists(path);
+                throw e;
+            }
+            this.resources = new Resources(path, channel);
+        }
+
+        private void write(Object[] values) throws IOException {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size << 1);
+            }
+            offsets[size++] = position + buffer.position();
+            for (int i = 0; i < values.length; i++) {
+                value(i, values[i]);
+            }
+        }
+
+        private void value(int slot, Object value) throws IOException {
+            ensure(17);
+            if (Objects.isNull(value)) {
+                buffer.put(NULL);
+            } else if (value instanceof Long v) {
+                buffer.put(LONG).putLong(v);
+            } else if (value instanceof Integer v) {
+                buffer.put(INT).putInt(v);
+            } else if (value instanceof String v) {
+                buffer.put(STRING);
+                bytes(v.getBytes(StandardCharsets.UTF_8));
+            } else if (value instanceof Boolean v) {
+                buffer.put(v ? TRUE : FALSE);
+            } else if (value instanceof Double v) {
+                buffer.put(DOUBLE).putDouble(v);
+            } else if (value instanceof BigDecimal v) {
+                buffer.put(BIG_DECIMAL).putInt(v.scale());
+                bytes(v.unscaledValue().toByteArray());
+            } else if (value instanceof Enum<?> v) {
+                enumTypes[slot] = v.getDeclaringClass();
+                buffer.put(ENUM).putInt(v.ordinal());
+            } else if (value instanceof LocalDateTime v) {
+                buffer.put(LOCAL_DATE_TIME).putLong(v.toEpochSecond(ZoneOffset.UTC)).putInt(v.getNano());
+            } else if (value instanceof LocalDate v) {
+                buffer.put(LOCAL_DATE).putLong(v.toEpochDay());
+            } else if (value instanceof LocalTime v) {
+                buffer.put(LOCAL_TIME).putLong(v.toNanoOfDay());
+            } else if (value instanceof OffsetDateTime v) {
+                buffer.put(OFFSET_DATE_TIME).putLong(v.toEpochSecond()).putInt(v.getNano()).putInt(v.getOffset().getTotalSeconds());
+            } else if (value instanceof Instant v) {
+                buffer.put(INSTANT).putLong(v.getEpochSecond()).putInt(v.getNano());
+            } else if (value instanceof Timestamp v) {
+                buffer.put(TIMESTAMP).putLong(v.getTime()).putInt(v.getNanos());
+            } else if (value instanceof java.sql.Date v) {
+                buffer.put(SQL_DATE).putLong(v.getTime());
+            } else if (value.getClass() == Date.class) {
+                buffer.put(DATE).putLong(((Date) value).getTime());
+            } else if (value instanceof Short v) {
+                buffer.put(SHORT).putShort(v);
+            } else if (value instanceof Byte v) {
+                buffer.put(BYTE).put(v);
+            } else if (value instanceof Float v) {
+                buffer.put(FLOAT).putFloat(v);
+            } else if (value instanceof Character v) {
+                buffer.put(CHAR).putChar(v);
+            } else if (value instanceof BigInteger v) {
+                buffer.put(BIG_INTEGER);
+                bytes(v.toByteArray());
+            } else if (value instanceof UUID v) {
+                buffer.put(UUID_VALUE).putLong(v.getMostSignificantBits()).putLong(v.getLeastSignificantBits());
+            } else if (value instanceof byte[] v) {
+                buffer.put(BYTES);
+                bytes(v);
+            } else if (value instanceof Serializable) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (ObjectOutputStream objectOutput = new ObjectOutputStream(out)) {
+                    objectOutput.writeObject(value);
+                }
+                buffer.put(SERIALIZED);
+                bytes(out.toByteArray());
+            } else {
+                throw new IllegalStateException("无法写入临时文件的列值类型：%s".formatted(value.getClass().getName()));
+            }
+        }
+
+        private void bytes(byte[] bytes) throws IOException {
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            flush();
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        private int position;
+
+        private Reader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private Object value(Object[] enumConstants) {
+            byte tag = buffer.get(position++);
+            return switch (tag) {
+                case NULL -> null;
+                case LONG -> readLong();
+                case INT -> readInt();
+                case STRING -> new String(bytes(), StandardCharsets.UTF_8);
+                case TRUE -> Boolean.TRUE;
+                case FALSE -> Boolean.FALSE;
+                case DOUBLE -> Double.longBitsToDouble(readLong());
+                case BIG_DECIMAL -> {
+                    int scale = readInt();
+                    yield new BigDecimal(new BigInteger(bytes()), scale);
+                }
+                case ENUM -> enumConstants[readInt()];
+                case LOCAL_DATE_TIME -> {
+                    long seconds = readLong();
+                    yield LocalDateTime.ofEpochSecond(seconds, readInt(), ZoneOffset.UTC);
+                }
+                case LOCAL_DATE -> LocalDate.ofEpochDay(readLong());
+                case LOCAL_TIME -> LocalTime.ofNanoOfDay(readLong());
+                case OFFSET_DATE_TIME -> {
+                    long seconds = readLong();
+                    int nanos = readInt();
+                    ZoneOffset offset = ZoneOffset.ofTotalSeconds(readInt());
+                    yield OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), offset);
+                }
+                case INSTANT -> {
+                    long seconds = readLong();
+                    yield Instant.ofEpochSecond(seconds, readInt());
+                }
+                case TIMESTAMP -> {
+                    Timestamp timestamp = new Timestamp(readLong());
+                    timestamp.setNanos(readInt());
+                    yield timestamp;
+                }
+                case SQL_DATE -> new java.sql.Date(readLong());
+                case DATE -> new Date(readLong());
+                case SHORT -> {
+                    short value = buffer.getShort(position);
+                    position += 2;
+                    yield value;
+                }
+                case BYTE -> buffer.get(position++);
+                case FLOAT -> Float.intBitsToFloat(readInt());
+                case CHAR -> {
+                    char value = buffer.getChar(position);
+                    position += 2;
+                    yield value;
+                }
+                case BIG_INTEGER -> new BigInteger(bytes());
+                case UUID_VALUE -> {
+                    long most = readLong();
+                    yield new UUID(most, readLong());
+                }
+                case BYTES -> bytes();
+                case SERIALIZED -> deserialize(bytes());
+                default -> throw new IllegalStateException("未知的类型标记：%s".formatted(tag));
+            };
+        }
+
+        private long readLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        private int readInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        private byte[] bytes() {
+            byte[] bytes = new byte[readInt()];
+            buffer.get(position, bytes);
+            position += bytes.length;
+            return bytes;
+        }
+
+        private static Object deserialize(byte[] bytes) {
+            try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                return input.readObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package io.github.codert96.orm.core;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.*;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.lang.NonNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 按查询结构缓存生成的 SQL 及其解析后的命名参数，超过上限时按写入顺序淘汰
+ */
+public class SqlCache {
+    private final Map<List<Object>, CachedSql> cache = new ConcurrentHashMap<>();
+
+    private final Queue<List<Object>> order = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @Getter
+    @Setter
+    private volatile int maxSize;
+
+    public SqlCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public CachedSql get(List<Object> shape, Supplier<String> sqlSupplier) {
+        CachedSql cachedSql = cache.get(shape);
+        if (Objects.nonNull(cachedSql)) {
+            hits.increment();
+            return cachedSql;
+        }
+        misses.increment();
+        cachedSql = new CachedSql(sqlSupplier.get());
+        if (maxSize <= 0) {
+            return cachedSql;
+        }
+        CachedSql previous = cache.putIfAbsent(shape, cachedSql);
+        if (Objects.nonNull(previous)) {
+            return previous;
+        }
+        order.add(shape);
+        while (cache.size() > maxSize) {
+            List<Object> eldest = order.poll();
+            if (Objects.isNull(eldest)) {
+                break;
+            }
+            cache.remove(eldest);
+        }
+        return cachedSql;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+        order.clear();
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CachedSql {
+        private final String sql;
+
+        private final ParsedSql parsedSql;
+
+        private final String id;
+
+        /**
+         * 最近一次展开的语句，参数类型与集合参数大小不变时直接按位置绑定
+         */
+        @Getter(AccessLevel.NONE)
+        private volatile Binding binding;
+
+        private CachedSql(String sql) {
+            this(sql, NamedParameterUtils.parseSqlStatement(sql), Integer.toHexString(sql.hashCode()));
+        }
+
+        public Creator creator(SqlParameterSource paramSource) {
+            return creator(paramSource, 0);
+        }
+
+        public Creator creator(SqlParameterSource paramSource, int fetchSize) {
+            Binding current = binding;
+            List<SqlParameter> declared = Objects.isNull(current) ? NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource) : current.declared();
+            Object[] values = new Object[declared.size()];
+            int[] sizes = new int[declared.size()];
+            boolean reusable = Objects.nonNull(current);
+            boolean tuples = false;
+            for (int i = 0; i < values.length; i++) {
+                SqlParameter parameter = declared.get(i);
+                String name = parameter.getName();
+                if (!paramSource.hasValue(name)) {
+                    throw new InvalidDataAccessApiUsageException("No value supplied for the SQL parameter '%s'".formatted(name));
+                }
+                values[i] = paramSource.getValue(name);
+                sizes[i] = expandedSize(values[i]);
+                tuples |= sizes[i] == TUPLES;
+                reusable = reusable && sizes[i] == current.sizes()[i]
+                        && paramSource.getSqlType(name) == parameter.getSqlType()
+                        && Objects.equals(paramSource.getTypeName(name), parameter.getTypeName());
+            }
+            if (!reusable || tuples) {
+                current = new Binding(
+                        NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource),
+                        NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource),
+                        sizes
+                );
+                if (!tuples) {
+                    binding = current;
+                }
+            }
+            return new Creator(new BoundStatement(current, values), fetchSize);
+        }
+
+        public int[] batchUpdate(JdbcOperations jdbcOperations, SqlParameterSource[] batchArgs) {
+            if (batchArgs.length == 0) {
+                return new int[0];
+            }
+            String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, batchArgs[0]);
+            return jdbcOperations.batchUpdate(sqlToUse, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(@NonNull PreparedStatement ps, int i) throws SQLException {
+                    Object[] values = NamedParameterUtils.buildValueArray(parsedSql, batchArgs[i], null);
+                    for (int index = 0; index < values.length; index++) {
+                        Object value = values[index];
+                        if (value instanceof SqlParameterValue parameterValue) {
+                            StatementCreatorUtils.setParameterValue(ps, index + 1, parameterValue, parameterValue.getValue());
+                        } else {
+                            StatementCreatorUtils.setParameterValue(ps, index + 1, SqlTypeValue.TYPE_UNKNOWN, value);
+                        }
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchArgs.length;
+                }
+            });
+        }
+    }
+
+    private static final int SCALAR = -1;
+
+    private static final int TUPLES = -2;
+
+    /**
+     * 集合参数展开的占位符个数，非集合为 SCALAR；元素为数组（元组 IN）时为 TUPLES，此时每次重新展开
+     */
+    private static int expandedSize(Object value) {
+        if (value instanceof SqlParameterValue parameterValue) {
+            value = parameterValue.getValue();
+        }
+        if (!(value instanceof Iterable<?> iterable)) {
+            return SCALAR;
+        }
+        int size = 0;
+        for (Object entry : iterable) {
+            if (entry instanceof Object[]) {
+                return TUPLES;
+            }
+            size++;
+        }
+        return size;
+    }
+
+    private record Binding(String sql, List<SqlParameter> declared, int[] sizes) {
+    }
+
+    /**
+     * 与 PreparedStatementCreatorFactory 的绑定规则相同：集合参数逐个元素绑定（ARRAY 类型除外）
+     */
+    private record BoundStatement(Binding binding, Object[] values) implements PreparedStatementCreator, SqlProvider, ParameterDisposer {
+        @NonNull
+        @Override
+        public PreparedStatement createPreparedStatement(@NonNull Connection con) throws SQLException {
+            PreparedStatement ps = con.prepareStatement(binding.sql());
+            try {
+                int index = 1;
+                for (int i = 0; i < values.length; i++) {
+                    Object value = values[i];
+                    SqlParameter declared = binding.declared().get(i);
+                    if (value instanceof SqlParameterValue parameterValue) {
+                        value = parameterValue.getValue();
+                        declared = parameterValue;
+                    }
+                    if (value instanceof Iterable<?> entries && declared.getSqlType() != Types.ARRAY) {
+                        for (Object entry : entries) {
+                            if (entry instanceof Object[] tuple) {
+                                for (Object element : tuple) {
+                                    StatementCreatorUtils.setParameterValue(ps, index++, declared, element);
+                                }
+                            } else {
+                                StatementCreatorUtils.setParameterValue(ps, index++, declared, entry);
+                            }
+                        }
+                    } else {
+                        StatementCreatorUtils.setParameterValue(ps, index++, declared, value);
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                ps.close();
+                throw e;
+            }
+            return ps;
+        }
+
+        @Override
+        public String getSql() {
+            return binding.sql();
+        }
+
+        @Override
+        public void cleanupParameters() {
+            StatementCreatorUtils.cleanupParameters(values);
+        }
+    }
+
+    /**
+     * 记录参数绑定耗时并按需设置 fetchSize
+     */
+    @RequiredArgsConstructor
+    public static class Creator implements PreparedStatementCreator, SqlProvider, ParameterDisposer {
+        private final PreparedStatementCreator delegate;
+
+        private final int fetchSize;
+
+        @Getter
+        private long bindNanos;
+
+        /**
+         * 创建的语句登记到该对象，取消时调用 {@link Statement#cancel()}
+         */
+        @Setter
+        @Accessors(chain = true, fluent = true)
+        private Cancellation cancellation;
+
+        @NonNull
+        @Override
+        public PreparedStatement createPreparedStatement(@NonNull Connection con) throws SQLException {
+            long start = System.nanoTime();
+            PreparedStatement ps = delegate.createPreparedStatement(con);
+            if (Objects.nonNull(cancellation)) {
+                cancellation.register(ps);
+            }
+            if (fetchSize > 0) {
+                ps.setFetchSize(fetchSize);
+            }
+            bindNanos = System.nanoTime() - start;
+            return ps;
+        }
+
+        @Override
+        public String getSql() {
+            return delegate instanceof SqlProvider sqlProvider ? sqlProvider.getSql() : null;
+        }
+
+        @Override
+        public void cleanupParameters() {
+            if (delegate instanceof ParameterDisposer parameterDisposer) {
+                parameterDisposer.cleanupParameters();
+            }
+        }
+    }
+
+    /**
+     * 一组可以一起取消的查询，取消后再创建的语句直接失败
+     */
+    public static final class Cancellation {
+        private final Queue<Statement> statements = new ConcurrentLinkedQueue<>();
+
+        private volatile boolean cancelled;
+
+        private void register(Statement statement) throws SQLException {
+            statements.add(statement);
+            if (cancelled) {
+                statement.close();
+                throw new SQLException("查询已取消");
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
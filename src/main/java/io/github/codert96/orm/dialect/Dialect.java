@@ -0,0 +1,70 @@
+package io.github.codert96.orm.dialect;
+
+import io.github.codert96.orm.core.ColumnInfo;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.sql.JDBCType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public interface Dialect {
+
+    /**
+     * 生成单条语句完成的插入或更新，参数以 :fieldName 命名
+     */
+    String upsert(String tableName, List<ColumnInfo> insertColumns, List<ColumnInfo> keyColumns, List<ColumnInfo> updateColumns);
+
+    /**
+     * 返回用于估算行数的执行计划语句，不支持时返回 null
+     */
+    default String explain(String sql) {
+        return null;
+    }
+
+    /**
+     * 从 {@link #explain(String)} 的结果中读取估算行数，无法估算时返回 null
+     */
+    default Long estimate(ResultSet rs) throws SQLException {
+        return null;
+    }
+
+    /**
+     * 是否支持以 col = ANY(?) 绑定数组参数
+     */
+    default boolean supportsArrayBinding() {
+        return false;
+    }
+
+    /**
+     * 数组参数的元素类型名，用于 {@link java.sql.Connection#createArrayOf(String, Object[])}
+     */
+    default String arrayType(Class<?> elementType) {
+        int sqlType = StatementCreatorUtils.javaTypeToSqlParameterType(elementType);
+        return sqlType == SqlTypeValue.TYPE_UNKNOWN ? JDBCType.VARCHAR.getName() : JDBCType.valueOf(sqlType).getName();
+    }
+
+    static Dialect of(String databaseProductName) {
+        String name = databaseProductName.toLowerCase();
+        if (name.contains("h2")) {
+            return new H2Dialect();
+        }
+        if (name.contains("postgresql")) {
+            return new PostgreSQLDialect();
+        }
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return new MySQLDialect();
+        }
+        throw new IllegalStateException("不支持的数据库：%s".formatted(databaseProductName));
+    }
+
+    static String columns(List<ColumnInfo> columns) {
+        return columns.stream().map(ColumnInfo::getColumnName).collect(Collectors.joining(", "));
+    }
+
+    static String values(List<ColumnInfo> columns) {
+        return columns.stream().map(columnInfo -> ":".concat(columnInfo.getFieldName())).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.codert96.orm.dialect;
+
+import io.github.codert96.orm.core.ColumnInfo;
+
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+public class H2Dialect implements Dialect {
+
+    @Override
+    public boolean supportsArrayBinding() {
+        return true;
+    }
+
+    @Override
+    public String upsert(String tableName, List<ColumnInfo> insertColumns, List<ColumnInfo> keyColumns, List<ColumnInfo> updateColumns) {
+        StringJoiner execSql = new StringJoiner(" ");
+        execSql.add("MERGE INTO")
+                .add(tableName)
+                .add("t USING (VALUES (")
+                .add(Dialect.values(insertColumns))
+                .add(")) s (")
+                .add(Dialect.columns(insertColumns))
+                .add(") ON")
+                .add(keyColumns.stream().map(columnInfo -> "t.%1$s = s.%1$s".formatted(columnInfo.getColumnName())).collect(Collectors.joining(" AND ")));
+        if (!updateColumns.isEmpty()) {
+            execSql.add("WHEN MATCHED THEN UPDATE SET")
+                    .add(updateColumns.stream().map(columnInfo -> "%1$s = s.%1$s".formatted(columnInfo.getColumnName())).collect(Collectors.joining(", ")));
+        }
+        execSql.add("WHEN NOT MATCHED THEN INSERT (")
+                .add(Dialect.columns(insertColumns))
+                .add(") VALUES (")
+                .add(insertColumns.stream().map(columnInfo -> "s.".concat(columnInfo.getColumnName())).collect(Collectors.joining(", ")))
+                .add(")");
+        return execSql.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.codert96.orm.dialect;
+
+import io.github.codert96.orm.core.ColumnInfo;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+
+public class MySQLDialect implements Dialect {
+
+    @Override
+    public String explain(String sql) {
+        return "EXPLAIN ".concat(sql);
+    }
+
+    @Override
+    public Long estimate(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        long rows = rs.getLong("rows");
+        if (rs.wasNull()) {
+            return null;
+        }
+        double filtered = rs.getDouble("filtered");
+        return rs.wasNull() ? rows : Math.round(rows * filtered / 100);
+    }
+
+    @Override
+    public String upsert(String tableName, List<ColumnInfo> insertColumns, List<ColumnInfo> keyColumns, List<ColumnInfo> updateColumns) {
+        // 没有可更新列时用主键自赋值，保持单语句语义
+        List<ColumnInfo> columns = updateColumns.isEmpty() ? keyColumns.subList(0, 1) : updateColumns;
+        StringJoiner execSql = new StringJoiner(" ");
+        execSql.add("INSERT INTO")
+                .add(tableName)
+                .add("(")
+                .add(Dialect.columns(insertColumns))
+                .add(") VALUES (")
+                .add(Dialect.values(insertColumns))
+                .add(") ON DUPLICATE KEY UPDATE")
+                .add(columns.stream().map(columnInfo -> "%1$s = VALUES(%1$s)".formatted(columnInfo.getColumnName())).collect(Collectors.joining(", ")));
+        return execSql.toString();
+    }
+}
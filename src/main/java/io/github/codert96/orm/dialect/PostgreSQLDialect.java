@@ -0,0 +1,55 @@
+package io.github.codert96.orm.dialect;
+
+import io.github.codert96.orm.core.ColumnInfo;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class PostgreSQLDialect implements Dialect {
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\"\\s*:\\s*(\\d+)");
+
+    @Override
+    public String explain(String sql) {
+        return "EXPLAIN (FORMAT JSON) ".concat(sql);
+    }
+
+    @Override
+    public Long estimate(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        Matcher matcher = PLAN_ROWS.matcher(rs.getString(1));
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    @Override
+    public boolean supportsArrayBinding() {
+        return true;
+    }
+
+    @Override
+    public String upsert(String tableName, List<ColumnInfo> insertColumns, List<ColumnInfo> keyColumns, List<ColumnInfo> updateColumns) {
+        StringJoiner execSql = new StringJoiner(" ");
+        execSql.add("INSERT INTO")
+                .add(tableName)
+                .add("(")
+                .add(Dialect.columns(insertColumns))
+                .add(") VALUES (")
+                .add(Dialect.values(insertColumns))
+                .add(") ON CONFLICT (")
+                .add(Dialect.columns(keyColumns))
+                .add(")");
+        if (updateColumns.isEmpty()) {
+            execSql.add("DO NOTHING");
+        } else {
+            execSql.add("DO UPDATE SET")
+                    .add(updateColumns.stream().map(columnInfo -> "%1$s = EXCLUDED.%1$s".formatted(columnInfo.getColumnName())).collect(Collectors.joining(", ")));
+        }
+        return execSql.toString();
+    }
+}
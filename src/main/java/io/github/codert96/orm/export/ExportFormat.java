@@ -0,0 +1,13 @@
+package io.github.codert96.orm.export;
+
+public enum ExportFormat {
+    /**
+     * RFC 4180，首行为列名
+     */
+    CSV,
+
+    /**
+     * 每行一个 JSON 对象，键为小写列名
+     */
+    JSONL
+}
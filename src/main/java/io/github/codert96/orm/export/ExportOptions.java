@@ -0,0 +1,47 @@
+package io.github.codert96.orm.export;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.function.LongConsumer;
+
+@Getter
+@Setter
+@Accessors(chain = true, fluent = true)
+public class ExportOptions {
+    private ExportFormat format = ExportFormat.CSV;
+
+    private boolean gzip = false;
+
+    /**
+     * CSV 是否输出列名行
+     */
+    private boolean header = true;
+
+    private char delimiter = ',';
+
+    private int bufferSize = 64 * 1024;
+
+    /**
+     * 每导出 progressInterval 行回调一次已导出的行数，结束时再回调一次总行数
+     */
+    private LongConsumer progress;
+
+    private long progressInterval = 10_000;
+
+    public static ExportOptions of(ExportFormat format) {
+        return new ExportOptions().format(format);
+    }
+
+    public ExportOptions copy() {
+        return new ExportOptions()
+                .format(format)
+                .gzip(gzip)
+                .header(header)
+                .delimiter(delimiter)
+                .bufferSize(bufferSize)
+                .progress(progress)
+                .progressInterval(progressInterval);
+    }
+}
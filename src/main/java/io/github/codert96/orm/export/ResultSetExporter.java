@@ -0,0 +1,446 @@
+package io.github.codert96.orm.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 把结果集逐行编码写入通道，不为每行创建实体或 Map：
+ * 整数直接写入数字，字符串按 UTF-8 边转义边写入复用的直接缓冲区
+ */
+public final class ResultSetExporter {
+    private static final int POOL_SIZE = 8;
+
+    /**
+     * 数值与转义字符按整体写入所需的最小缓冲区
+     */
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private static final Queue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int LONG = 0;
+
+    private static final int DECIMAL = 1;
+
+    private static final int DOUBLE = 2;
+
+    private static final int BOOLEAN = 3;
+
+    private static final int DATE = 4;
+
+    private static final int TIME = 5;
+
+    private static final int TIMESTAMP = 6;
+
+    private static final int TIMESTAMP_TZ = 7;
+
+    private static final int BINARY = 8;
+
+    private static final int STRING = 9;
+
+    private final ExportOptions options;
+
+    private final WritableByteChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final byte[] digits = new byte[20];
+
+    private ResultSetExporter(WritableByteChannel channel, ExportOptions options, ByteBuffer buffer) {
+        this.channel = channel;
+        this.options = options;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 导出结果集剩余的全部行，不关闭通道
+     *
+     * @return 导出的行数
+     */
+    public static long export(ResultSet rs, WritableByteChannel channel, ExportOptions options) throws SQLException {
+        if (options.delimiter() >= 0x80) {
+            throw new IllegalArgumentException("分隔符必须是 ASCII 字符：%s".formatted(options.delimiter()));
+        }
+        if (options.bufferSize() < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("bufferSize 不能小于 %s".formatted(MIN_BUFFER_SIZE));
+        }
+        ByteBuffer buffer = acquire(options.bufferSize());
+        GZIPOutputStream gzip = null;
+        try {
+            WritableByteChannel target = channel;
+            if (options.gzip()) {
+                gzip = new GZIPOutputStream(new NonClosingOutputStream(Channels.newOutputStream(channel)), options.bufferSize());
+                target = Channels.newChannel(gzip);
+            }
+            long rows = new ResultSetExporter(target, options, buffer).export(rs);
+            if (Objects.nonNull(gzip)) {
+                gzip.finish();
+                gzip.flush();
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private long export(ResultSet rs) throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        int[] kinds = new int[count];
+        byte[][] names = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            kinds[i] = kind(metaData.getColumnType(i + 1));
+            String label = metaData.getColumnLabel(i + 1).toLowerCase();
+            if (options.format() == ExportFormat.JSONL) {
+                names[i] = jsonKey(label, i == 0);
+            } else {
+                names[i] = label.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        boolean csv = options.format() == ExportFormat.CSV;
+        if (csv && options.header()) {
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    put((byte) options.delimiter());
+                }
+                csvString(new String(names[i], StandardCharsets.UTF_8));
+            }
+            put((byte) '\n');
+        }
+        long rows = 0;
+        long interval = options.progressInterval();
+        while (rs.next()) {
+            if (csv) {
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        put((byte) options.delimiter());
+                    }
+                    value(rs, i + 1, kinds[i], true);
+                }
+                put((byte) '\n');
+            } else {
+                for (int i = 0; i < count; i++) {
+                    put(names[i]);
+                    value(rs, i + 1, kinds[i], false);
+                }
+                put((byte) '}');
+                put((byte) '\n');
+            }
+            rows++;
+            if (Objects.nonNull(options.progress()) && interval > 0 && rows % interval == 0) {
+                options.progress().accept(rows);
+            }
+        }
+        flush();
+        if (Objects.nonNull(options.progress())) {
+            options.progress().accept(rows);
+        }
+        return rows;
+    }
+
+    private void value(ResultSet rs, int column, int kind, boolean csv) throws SQLException, IOException {
+        switch (kind) {
+            case LONG -> {
+                long value = rs.getLong(column);
+                if (rs.wasNull()) {
+                    nullValue(csv);
+                } else {
+                    putLong(value);
+                }
+            }
+            case DOUBLE -> {
+                double value = rs.getDouble(column);
+                if (rs.wasNull()) {
+                    nullValue(csv);
+                } else if (Double.isFinite(value)) {
+                    putAscii(Double.toString(value));
+                } else if (csv) {
+                    putAscii(Double.toString(value));
+                } else {
+                    put(NULL);
+                }
+            }
+            case DECIMAL -> {
+                BigDecimal value = rs.getBigDecimal(column);
+                if (Objects.isNull(value)) {
+                    nullValue(csv);
+                } else {
+                    putAscii(value.toPlainString());
+                }
+            }
+            case BOOLEAN -> {
+                boolean value = rs.getBoolean(column);
+                if (rs.wasNull()) {
+                    nullValue(csv);
+                } else {
+                    put(value ? TRUE : FALSE);
+                }
+            }
+            case BINARY -> {
+                byte[] value = rs.getBytes(column);
+                if (Objects.isNull(value)) {
+                    nullValue(csv);
+                } else {
+                    quoted(Base64.getEncoder().encodeToString(value), csv);
+                }
+            }
+            default -> {
+                String value = switch (kind) {
+                    case DATE -> Objects.toString(rs.getObject(column, LocalDate.class), null);
+                    case TIME -> Objects.toString(rs.getObject(column, LocalTime.class), null);
+                    case TIMESTAMP -> Objects.toString(rs.getObject(column, LocalDateTime.class), null);
+                    case TIMESTAMP_TZ -> Objects.toString(rs.getObject(column, OffsetDateTime.class), null);
+                    default -> rs.getString(column);
+                };
+                if (Objects.isNull(value)) {
+                    nullValue(csv);
+                } else if (csv) {
+                    csvString(value);
+                } else {
+                    jsonString(value);
+                }
+            }
+        }
+    }
+
+    private void nullValue(boolean csv) throws IOException {
+        if (!csv) {
+            put(NULL);
+        }
+    }
+
+    private void quoted(String ascii, boolean csv) throws IOException {
+        if (!csv) {
+            put((byte) '"');
+        }
+        putAscii(ascii);
+        if (!csv) {
+            put((byte) '"');
+        }
+    }
+
+    private void csvString(String value) throws IOException {
+        char delimiter = options.delimiter();
+        boolean quote = value.isEmpty();
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putUtf8(value, false);
+            return;
+        }
+        put((byte) '"');
+        putUtf8(value, false);
+        put((byte) '"');
+    }
+
+    private void jsonString(String value) throws IOException {
+        put((byte) '"');
+        putUtf8(value, true);
+        put((byte) '"');
+    }
+
+    /**
+     * CSV 中的引号加倍；JSON 中转义引号、反斜杠与控制字符
+     */
+    private void putUtf8(String value, boolean json) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.remaining() < 6) {
+                flush();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (json && (c == '"' || c == '\\' || c < 0x20)) {
+                    buffer.put((byte) '\\');
+                    switch (c) {
+                        case '"', '\\' -> buffer.put((byte) c);
+                        case '\n' -> buffer.put((byte) 'n');
+                        case '\r' -> buffer.put((byte) 'r');
+                        case '\t' -> buffer.put((byte) 't');
+                        default -> buffer.put((byte) 'u').put((byte) '0').put((byte) '0').put(HEX[c >> 4]).put(HEX[c & 0xF]);
+                    }
+                } else {
+                    if (!json && c == '"') {
+                        buffer.put((byte) '"');
+                    }
+                    buffer.put((byte) c);
+                }
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18))
+                        .put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F))
+                        .put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            putAscii(Long.toString(value));
+            return;
+        }
+        if (buffer.remaining() < 20) {
+            flush();
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, position, digits.length - position);
+    }
+
+    /**
+     * 超过缓冲区大小的值分段写出
+     */
+    private void putAscii(String value) throws IOException {
+        if (buffer.remaining() < value.length()) {
+            flush();
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private void put(byte value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(value);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            flush();
+        }
+        if (buffer.remaining() < bytes.length) {
+            channel.write(ByteBuffer.wrap(bytes));
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] jsonKey(String label, boolean first) {
+        StringBuilder key = new StringBuilder(first ? "{\"" : ",\"");
+        for (char c : label.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                key.append('\\');
+            }
+            key.append(c);
+        }
+        return key.append("\":").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int kind(int sqlType) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> LONG;
+            case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+            case Types.FLOAT, Types.REAL, Types.DOUBLE -> DOUBLE;
+            case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+            case Types.DATE -> DATE;
+            case Types.TIME -> TIME;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            case Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP_TZ;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> BINARY;
+            default -> STRING;
+        };
+    }
+
+    private static ByteBuffer acquire(int size) {
+        ByteBuffer buffer = POOL.poll();
+        if (Objects.isNull(buffer) || buffer.capacity() < size) {
+            return ByteBuffer.allocateDirect(Math.max(size, 64));
+        }
+        return buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        buffer.clear();
+        if (POOL.size() < POOL_SIZE) {
+            POOL.offer(buffer);
+        }
+    }
+
+    /**
+     * gzip 结束时不关闭调用方的通道
+     */
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        private NonClosingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
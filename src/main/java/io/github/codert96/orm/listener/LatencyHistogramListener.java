@@ -0,0 +1,70 @@
+package io.github.codert96.orm.listener;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按表名统计耗时分布，桶按 2 的幂划分，百分位取所在桶的上界
+ */
+public class LatencyHistogramListener implements QueryListener {
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onQuery(QueryEvent event) {
+        histograms.computeIfAbsent(event.getTableName(), tableName -> new Histogram()).record(event.totalNanos());
+    }
+
+    /**
+     * @param percentile 0 到 100
+     * @return 纳秒，没有记录时返回 0
+     */
+    public long percentile(String tableName, double percentile) {
+        Histogram histogram = histograms.get(tableName);
+        return Objects.isNull(histogram) ? 0 : histogram.percentile(percentile);
+    }
+
+    public long count(String tableName) {
+        Histogram histogram = histograms.get(tableName);
+        return Objects.isNull(histogram) ? 0 : histogram.count.sum();
+    }
+
+    public Map<String, Long> percentiles(double percentile) {
+        Map<String, Long> result = new ConcurrentHashMap<>();
+        histograms.forEach((tableName, histogram) -> result.put(tableName, histogram.percentile(percentile)));
+        return result;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    private static final class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+        private final LongAdder count = new LongAdder();
+
+        private void record(long nanos) {
+            buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(nanos, 1)));
+            count.increment();
+        }
+
+        private long percentile(double percentile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < 64; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+}
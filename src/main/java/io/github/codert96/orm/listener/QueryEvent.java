@@ -0,0 +1,44 @@
+package io.github.codert96.orm.listener;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class QueryEvent {
+    /**
+     * SQL 结构标识，同一结构的查询相同
+     */
+    private final String shapeId;
+
+    private final String sql;
+
+    private final String tableName;
+
+    /**
+     * SELECT、COUNT、INSERT、UPDATE、DELETE、UPSERT、BATCH 等
+     */
+    private final String operation;
+
+    private final long bindNanos;
+
+    private final long executeNanos;
+
+    /**
+     * 读取并映射结果集的耗时，流式查询包含调用方处理每行的时间
+     */
+    private final long mappingNanos;
+
+    /**
+     * 查询返回行数或更新影响行数
+     */
+    private final long rows;
+
+    private final Throwable error;
+
+    public long totalNanos() {
+        return bindNanos + executeNanos + mappingNanos;
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.codert96.orm.listener;
+
+/**
+ * 查询监听器，注册到 {@link io.github.codert96.orm.config.Configuration#QUERY_LISTENERS}，
+ * 未注册任何监听器时执行路径上不会构造事件
+ */
+@FunctionalInterface
+public interface QueryListener {
+
+    void onQuery(QueryEvent event);
+}
@@ -0,0 +1,35 @@
+package io.github.codert96.orm.listener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@RequiredArgsConstructor
+public class SlowQueryLogger implements QueryListener {
+    private final Duration threshold;
+
+    @Override
+    public void onQuery(QueryEvent event) {
+        long totalNanos = event.totalNanos();
+        if (totalNanos < threshold.toNanos() && Objects.isNull(event.getError())) {
+            return;
+        }
+        log.warn(
+                "慢查询：{} {} {}ms（绑定 {}ms，执行 {}ms，映射 {}ms），行数 {}{}{}",
+                event.getOperation(),
+                event.getTableName(),
+                TimeUnit.NANOSECONDS.toMillis(totalNanos),
+                TimeUnit.NANOSECONDS.toMillis(event.getBindNanos()),
+                TimeUnit.NANOSECONDS.toMillis(event.getExecuteNanos()),
+                TimeUnit.NANOSECONDS.toMillis(event.getMappingNanos()),
+                event.getRows(),
+                System.lineSeparator(),
+                event.getSql(),
+                event.getError()
+        );
+    }
+}
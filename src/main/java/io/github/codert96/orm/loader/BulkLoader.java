@@ -0,0 +1,532 @@
+package io.github.codert96.orm.loader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.codert96.orm.config.Configuration;
+import io.github.codert96.orm.core.ColumnInfo;
+import io.github.codert96.orm.core.Example;
+import io.github.codert96.orm.core.Queries;
+import io.github.codert96.orm.export.ExportFormat;
+import io.github.codert96.orm.utils.BeanAccessor;
+import io.github.codert96.orm.utils.Utils;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.ClassUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 从 CSV / JSON Lines 流式导入实体表：解析、类型转换、JDBC 批量写入分三级流水线，
+ * 级间使用有界队列，文件不会整体读入内存。
+ * <p>
+ * 转换与写入线程（writers + 1 个）由每次导入自行创建并在结束时关闭，不占用共享线程池，避免线程不足时流水线互相等待。
+ * 每个写入线程独占一个连接，每 commitSize 行提交一次；批次失败时回滚到批次前的保存点并逐行重试，
+ * 无法转换或写入的行原样写入拒绝文件。出现连接错误时整体失败，已提交的行不会回滚
+ */
+@Slf4j
+@Setter
+@Accessors(chain = true, fluent = true)
+public class BulkLoader<T> {
+    private static final List<?> END = List.of();
+
+    private static final long POLL_MILLIS = 100;
+
+    private static final AtomicLong THREADS = new AtomicLong();
+
+    private final Class<T> entityClass;
+
+    private final JdbcOperations jdbcOperations;
+
+    private final ObjectMapper objectMapper;
+
+    private ExportFormat format = ExportFormat.CSV;
+
+    /**
+     * CSV 首行是否为列名；没有列名时按实体列的声明顺序对应
+     */
+    private boolean header = true;
+
+    private char delimiter = ',';
+
+    /**
+     * 文件名以 .gz 结尾时自动解压
+     */
+    private boolean gzip = false;
+
+    private Charset charset = StandardCharsets.UTF_8;
+
+    private int batchSize = Example.DEFAULT_BATCH_SIZE;
+
+    private int commitSize = 10_000;
+
+    /**
+     * 并行写入的线程数，每个线程使用独立连接
+     */
+    private int writers = 1;
+
+    /**
+     * 每级队列最多缓存的批次数
+     */
+    private int queueCapacity = 16;
+
+    private Path rejectFile;
+
+    /**
+     * 每次提交后以已提交的总行数回调，在写入线程中执行
+     */
+    private LongConsumer progress;
+
+    public BulkLoader(Class<T> entityClass, JdbcOperations jdbcOperations, ObjectMapper objectMapper) {
+        this.entityClass = entityClass;
+        this.jdbcOperations = jdbcOperations;
+        this.objectMapper = objectMapper;
+    }
+
+    public LoadResult load(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return load(in, gzip || path.getFileName().toString().endsWith(".gz"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 不关闭输入流
+     */
+    public LoadResult load(InputStream in) {
+        try {
+            return load(in, gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private LoadResult load(InputStream in, boolean gzip) throws IOException {
+        long start = System.nanoTime();
+        if (batchSize <= 0 || commitSize <= 0 || writers <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("batchSize、commitSize、writers、queueCapacity 必须大于 0");
+        }
+        String tableName = Utils.extractTableName(entityClass);
+        List<ColumnInfo> columns = Utils.extractColumns(entityClass).stream().filter(ColumnInfo::isInsertable).toList();
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            byName.putIfAbsent(columns.get(i).getColumnName().toLowerCase(), i);
+            byName.putIfAbsent(columns.get(i).getFieldName().toLowerCase(), i);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(gzip ? new GZIPInputStream(in, 1 << 16) : in, charset), 1 << 16);
+        RecordReader records;
+        List<ColumnInfo> targets = new ArrayList<>();
+        String headerLine = null;
+        if (format == ExportFormat.CSV) {
+            RecordReader.Csv csv = new RecordReader.Csv(reader, delimiter);
+            int[] mapping;
+            if (header) {
+                RecordReader.Row row = csv.header();
+                headerLine = Objects.isNull(row) ? null : row.raw();
+                String[] names = Objects.isNull(row) ? new String[0] : row.values();
+                mapping = new int[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    Integer index = Objects.isNull(names[i]) ? null : byName.get(names[i].trim().toLowerCase());
+                    ColumnInfo column = Objects.isNull(index) ? null : columns.get(index);
+                    mapping[i] = Objects.isNull(column) || targets.contains(column) ? -1 : targets.size();
+                    if (mapping[i] >= 0) {
+                        targets.add(column);
+                    }
+                }
+            } else {
+                targets.addAll(columns);
+                mapping = new int[columns.size()];
+                Arrays.setAll(mapping, i -> i);
+            }
+            csv.targets(mapping, targets.size());
+            records = csv;
+        } else {
+            targets.addAll(columns);
+            Map<String, Integer> keys = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                keys.put(columns.get(i).getColumnName(), i);
+                keys.put(columns.get(i).getColumnName().toLowerCase(), i);
+                keys.put(columns.get(i).getFieldName(), i);
+            }
+            records = new RecordReader.JsonLines(reader, objectMapper, keys, columns.size());
+        }
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("文件中没有可写入 %s 的列".formatted(tableName));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1, runnable -> {
+            Thread thread = new Thread(runnable, "orm-bulk-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Rejects rejects = new Rejects(rejectFile, headerLine)) {
+            Pipeline pipeline = new Pipeline(tableName, targets, rejects);
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            futures.add(CompletableFuture.runAsync(pipeline::bind, executor));
+            for (int i = 0; i < writers; i++) {
+                futures.add(CompletableFuture.runAsync(() -> jdbcOperations.execute((ConnectionCallback<Void>) pipeline::write), executor));
+            }
+            CompletableFuture<Void> all = Queries.failFast(futures.toArray(CompletableFuture[]::new));
+            all.whenComplete((result, error) -> {
+                if (Objects.nonNull(error)) {
+                    pipeline.aborted = true;
+                }
+            });
+            try {
+                pipeline.parse(records);
+            } catch (IOException | RuntimeException e) {
+                pipeline.aborted = true;
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+                if (e instanceof CancellationException && all.isCompletedExceptionally()) {
+                    join(all);
+                }
+                throw e;
+            }
+            join(all);
+            Configuration.QUERY_CACHE.invalidate(tableName);
+            return new LoadResult(pipeline.read.sum(), pipeline.loaded.sum(), rejects.count.sum(), Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void join(CompletableFuture<Void> all) {
+        try {
+            all.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private Object convert(String text, Class<?> type) throws IOException {
+        if (Objects.isNull(text) || type == String.class || type == Object.class) {
+            return text;
+        }
+        String value = text.trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        Class<?> target = ClassUtils.resolvePrimitiveIfNecessary(type);
+        if (target == Long.class) {
+            return Long.valueOf(value);
+        } else if (target == Integer.class) {
+            return Integer.valueOf(value);
+        } else if (target == Short.class) {
+            return Short.valueOf(value);
+        } else if (target == Byte.class) {
+            return Byte.valueOf(value);
+        } else if (target == Double.class) {
+            return Double.valueOf(value);
+        } else if (target == Float.class) {
+            return Float.valueOf(value);
+        } else if (target == BigDecimal.class) {
+            return new BigDecimal(value);
+        } else if (target == BigInteger.class) {
+            return new BigInteger(value);
+        } else if (target == Boolean.class) {
+            if ("true".equalsIgnoreCase(value) || "1".equals(value)) {
+                return true;
+            } else if ("false".equalsIgnoreCase(value) || "0".equals(value)) {
+                return false;
+            }
+            throw new IllegalArgumentException("无法解析为布尔值：%s".formatted(value));
+        } else if (target == LocalDate.class) {
+            return LocalDate.parse(value);
+        } else if (target == LocalTime.class) {
+            return LocalTime.parse(value);
+        } else if (target == LocalDateTime.class) {
+            return LocalDateTime.parse(value.length() > 10 && value.charAt(10) == ' ' ? value.replace(' ', 'T') : value);
+        } else if (target == OffsetDateTime.class) {
+            return OffsetDateTime.parse(value);
+        } else if (target == Instant.class) {
+            return Instant.parse(value);
+        } else if (target == UUID.class) {
+            return UUID.fromString(value);
+        } else if (target == byte[].class) {
+            return Base64.getDecoder().decode(value);
+        } else if (target.isEnum()) {
+            for (Object constant : target.getEnumConstants()) {
+                if (((Enum<?>) constant).name().equals(value)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("%s 没有枚举值 %s".formatted(target.getSimpleName(), value));
+        } else if (value.startsWith("{") || value.startsWith("[")) {
+            return objectMapper.readValue(value, target);
+        }
+        return objectMapper.convertValue(value, target);
+    }
+
+    private static boolean isConnectionError(SQLException e) {
+        return e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException
+                || Objects.nonNull(e.getSQLState()) && e.getSQLState().startsWith("08");
+    }
+
+    private record Bound(RecordReader.Row row, Object[] values) {
+    }
+
+    private final class Pipeline {
+        private final List<ColumnInfo> targets;
+
+        private final Class<?>[] types;
+
+        private final int[] sqlTypes;
+
+        private final String sql;
+
+        private final Rejects rejects;
+
+        private final BlockingQueue<List<RecordReader.Row>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final BlockingQueue<List<Bound>> bound = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final LongAdder read = new LongAdder();
+
+        private final LongAdder loaded = new LongAdder();
+
+        private volatile boolean aborted;
+
+        private Pipeline(String tableName, List<ColumnInfo> targets, Rejects rejects) {
+            BeanAccessor accessor = Utils.accessor(entityClass);
+            this.targets = targets;
+            this.types = new Class<?>[targets.size()];
+            this.sqlTypes = new int[targets.size()];
+            StringJoiner names = new StringJoiner(", ");
+            StringJoiner placeholders = new StringJoiner(", ");
+            for (int i = 0; i < targets.size(); i++) {
+                ColumnInfo column = targets.get(i);
+                types[i] = accessor.type(column.getFieldName());
+                sqlTypes[i] = types[i].isEnum() ? Types.VARCHAR : accessor.sqlType(column.getFieldName());
+                names.add(column.getColumnName());
+                placeholders.add("?");
+            }
+            this.sql = "INSERT INTO %s (%s) VALUES (%s)".formatted(tableName, names, placeholders);
+            this.rejects = rejects;
+        }
+
+        private void parse(RecordReader records) throws IOException {
+            List<RecordReader.Row> batch = new ArrayList<>(batchSize);
+            RecordReader.Row row;
+            while (Objects.nonNull(row = records.next())) {
+                read.increment();
+                if (Objects.nonNull(row.error())) {
+                    rejects.write(row, row.error());
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    put(parsed, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                put(parsed, batch);
+            }
+            put(parsed, end());
+        }
+
+        private void bind() {
+            List<RecordReader.Row> batch;
+            while ((batch = take(parsed)) != END) {
+                List<Bound> rows = new ArrayList<>(batch.size());
+                for (RecordReader.Row row : batch) {
+                    Object[] values = new Object[types.length];
+                    int i = 0;
+                    try {
+                        for (; i < types.length; i++) {
+                            values[i] = convert(row.values()[i], types[i]);
+                        }
+                        rows.add(new Bound(row, values));
+                    } catch (IOException | RuntimeException e) {
+                        rejects.write(row, "列 %s：%s".formatted(targets.get(i).getColumnName(), e.getMessage()));
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    put(bound, rows);
+                }
+            }
+            for (int i = 0; i < writers; i++) {
+                put(bound, end());
+            }
+        }
+
+        private Void write(Connection connection) throws SQLException {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                long pending = 0;
+                List<Bound> batch;
+                while ((batch = take(bound)) != END) {
+                    pending += execute(connection, ps, batch);
+                    if (pending >= commitSize) {
+                        commit(connection, pending);
+                        pending = 0;
+                    }
+                }
+                commit(connection, pending);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        }
+
+        private int execute(Connection connection, PreparedStatement ps, List<Bound> batch) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                for (Bound row : batch) {
+                    bind(ps, row.values());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                connection.releaseSavepoint(savepoint);
+                return batch.size();
+            } catch (SQLException e) {
+                if (isConnectionError(e)) {
+                    throw e;
+                }
+                ps.clearBatch();
+                connection.rollback(savepoint);
+            }
+            int written = 0;
+            for (Bound row : batch) {
+                Savepoint single = connection.setSavepoint();
+                try {
+                    bind(ps, row.values());
+                    ps.executeUpdate();
+                    connection.releaseSavepoint(single);
+                    written++;
+                } catch (SQLException e) {
+                    if (isConnectionError(e)) {
+                        throw e;
+                    }
+                    connection.rollback(single);
+                    rejects.write(row.row(), e.getMessage());
+                }
+            }
+            return written;
+        }
+
+        private void bind(PreparedStatement ps, Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                StatementCreatorUtils.setParameterValue(ps, i + 1, sqlTypes[i], values[i]);
+            }
+        }
+
+        private void commit(Connection connection, long pending) throws SQLException {
+            connection.commit();
+            loaded.add(pending);
+            if (Objects.nonNull(progress) && pending > 0) {
+                progress.accept(loaded.sum());
+            }
+        }
+
+        private <E> void put(BlockingQueue<E> queue, E item) {
+            try {
+                while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (aborted) {
+                        throw new CancellationException("导入已中止");
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw interrupted();
+            }
+        }
+
+        private <E> E take(BlockingQueue<E> queue) {
+            E item;
+            try {
+                while (Objects.isNull(item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS))) {
+                    if (aborted) {
+                        throw new CancellationException("导入已中止");
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw interrupted();
+            }
+            return item;
+        }
+
+        /**
+         * 任一阶段被中断时中止整个流水线
+         */
+        private CancellationException interrupted() {
+            aborted = true;
+            Thread.currentThread().interrupt();
+            return new CancellationException("导入被中断");
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <E> List<E> end() {
+            return (List<E>) END;
+        }
+    }
+
+    /**
+     * 拒绝文件保留原始记录（CSV 带列名行），修正后可再次导入
+     */
+    private static final class Rejects implements Closeable {
+        private final Path path;
+
+        private final String header;
+
+        private final LongAdder count = new LongAdder();
+
+        private BufferedWriter writer;
+
+        private Rejects(Path path, String header) {
+            this.path = path;
+            this.header = header;
+        }
+
+        private synchronized void write(RecordReader.Row row, String reason) {
+            count.increment();
+            log.warn("第 {} 行导入失败：{}", row.line(), reason);
+            if (Objects.isNull(path)) {
+                return;
+            }
+            try {
+                if (Objects.isNull(writer)) {
+                    writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                    if (Objects.nonNull(header)) {
+                        writer.write(header);
+                        writer.newLine();
+                    }
+                }
+                writer.write(row.raw());
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (Objects.nonNull(writer)) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.codert96.orm.loader;
+
+import java.time.Duration;
+
+/**
+ * @param read     解析出的记录数
+ * @param loaded   写入成功的行数
+ * @param rejected 转换或写入失败、写入拒绝文件的行数
+ */
+public record LoadResult(long read, long loaded, long rejected, Duration elapsed) {
+    public double rowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : loaded * 1_000_000_000.0 / nanos;
+    }
+}
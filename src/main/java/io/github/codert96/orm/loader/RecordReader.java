@@ -0,0 +1,195 @@
+package io.github.codert96.orm.loader;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 逐条读取记录，字段按目标列的下标排列，文件中没有的列为 null
+ */
+abstract class RecordReader {
+    protected final BufferedReader reader;
+
+    protected long line;
+
+    RecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return 文件结束时返回 null
+     */
+    abstract Row next() throws IOException;
+
+    /**
+     * @param error 无法解析时的原因，此时 values 为 null
+     */
+    record Row(long line, String raw, String[] values, String error) {
+    }
+
+    /**
+     * RFC 4180：引号内可包含分隔符、换行与加倍的引号；未加引号的空字段读作 null，"" 读作空串
+     */
+    static final class Csv extends RecordReader {
+        private final char delimiter;
+
+        private int[] targets;
+
+        private int width;
+
+        Csv(BufferedReader reader, char delimiter) {
+            super(reader);
+            this.delimiter = delimiter;
+        }
+
+        /**
+         * @param targets 文件第 i 列写入目标列 targets[i]，-1 表示忽略
+         */
+        void targets(int[] targets, int width) {
+            this.targets = targets;
+            this.width = width;
+        }
+
+        Row header() throws IOException {
+            return read();
+        }
+
+        @Override
+        Row next() throws IOException {
+            Row row = read();
+            if (Objects.isNull(row)) {
+                return null;
+            }
+            String[] fields = row.values();
+            String[] values = new String[width];
+            for (int i = 0; i < fields.length && i < targets.length; i++) {
+                if (targets[i] >= 0) {
+                    values[targets[i]] = fields[i];
+                }
+            }
+            return new Row(row.line(), row.raw(), values, null);
+        }
+
+        private Row read() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (Objects.nonNull(text) && text.isEmpty());
+            if (Objects.isNull(text)) {
+                return null;
+            }
+            long start = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            StringBuilder raw = null;
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    String next = reader.readLine();
+                    if (Objects.isNull(next)) {
+                        throw new IOException("第 %s 行的引号未闭合".formatted(start));
+                    }
+                    line++;
+                    if (Objects.isNull(raw)) {
+                        raw = new StringBuilder(text);
+                    }
+                    raw.append('\n').append(next);
+                    field.append('\n');
+                    text = next;
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == delimiter) {
+                    fields.add(field(field, wasQuoted));
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field(field, wasQuoted));
+            return new Row(start, Objects.isNull(raw) ? text : raw.toString(), fields.toArray(String[]::new), null);
+        }
+
+        private static String field(StringBuilder field, boolean quoted) {
+            return field.isEmpty() && !quoted ? null : field.toString();
+        }
+    }
+
+    /**
+     * 每行一个 JSON 对象，按键名（列名或属性名）匹配目标列；标量取文本，对象与数组取 JSON 文本
+     */
+    static final class JsonLines extends RecordReader {
+        private final ObjectMapper objectMapper;
+
+        private final Map<String, Integer> targets;
+
+        private final int width;
+
+        JsonLines(BufferedReader reader, ObjectMapper objectMapper, Map<String, Integer> targets, int width) {
+            super(reader);
+            this.objectMapper = objectMapper;
+            this.targets = targets;
+            this.width = width;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (Objects.nonNull(text) && text.isBlank());
+            if (Objects.isNull(text)) {
+                return null;
+            }
+            String[] values = new String[width];
+            try (JsonParser parser = objectMapper.createParser(text)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return new Row(line, text, null, "不是 JSON 对象");
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Integer target = targets.get(parser.currentName());
+                    JsonToken token = parser.nextToken();
+                    if (Objects.isNull(target)) {
+                        parser.skipChildren();
+                    } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                        values[target] = parser.readValueAsTree().toString();
+                    } else if (token != JsonToken.VALUE_NULL) {
+                        values[target] = parser.getText();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                return new Row(line, text, null, e.getOriginalMessage());
+            }
+            return new Row(line, text, values, null);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package io.github.codert96.orm.metadata;
+
+import io.github.codert96.orm.core.ColumnInfo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 编译期生成的实体元数据，由 {@link EntityMetadataProcessor} 为每个 {@code @Table}/{@code @Column} 实体生成
+ * {@code <类名>_OrmMetadata}（嵌套类的 $ 替换为 _）。存在时 {@link io.github.codert96.orm.utils.Utils} 直接读取，
+ * 不再反射解析
+ */
+public interface EntityMetadata {
+    String SUFFIX = "_OrmMetadata";
+
+    Class<?> entityClass();
+
+    String tableName();
+
+    /**
+     * 按字段声明顺序排列，键为读取方法名；每次调用返回新实例
+     */
+    Map<String, ColumnInfo> columns();
+
+    List<Property> properties();
+
+    /**
+     * 为 false 时存在无法生成读取函数的属性（私有且没有 getter），属性读取仍使用反射
+     */
+    boolean complete();
+
+    static ColumnInfo column(String tableName, String fieldName, String columnName, boolean insertable, boolean updatable, boolean id) {
+        ColumnInfo columnInfo = new ColumnInfo();
+        columnInfo.setTableName(tableName);
+        columnInfo.setFieldName(fieldName);
+        columnInfo.setColumnName(columnName);
+        columnInfo.setInsertable(insertable);
+        columnInfo.setUpdatable(updatable);
+        columnInfo.setId(id);
+        return columnInfo;
+    }
+
+    record Property(String name, Class<?> type, Function<Object, Object> getter) {
+    }
+}
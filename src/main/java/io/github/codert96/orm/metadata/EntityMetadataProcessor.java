@@ -0,0 +1,336 @@
+package io.github.codert96.orm.metadata;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 为 {@code @Table}/{@code @Column} 实体生成 {@link EntityMetadata}，规则与反射解析一致：
+ * 有 getter 的属性按字段声明顺序成为列，同时标注 {@code @Transient} 且为 transient 的字段除外；
+ * 没有字段的公开 getter 只作为可读属性，不成为列。
+ * <p>
+ * 通过 META-INF/services 注册，把本库加入注解处理器路径即可启用。getter 可以手写，也可以由 Lombok 的
+ * {@code @Data}/{@code @Getter}/{@code @Value} 生成，这里按注解判断而不依赖 Lombok 的执行顺序
+ */
+@SupportedAnnotationTypes({"jakarta.persistence.Table", "jakarta.persistence.Column"})
+public class EntityMetadataProcessor extends AbstractProcessor {
+    private static final String TABLE = "jakarta.persistence.Table";
+
+    private static final String COLUMN = "jakarta.persistence.Column";
+
+    private static final String ID = "jakarta.persistence.Id";
+
+    private static final String TRANSIENT = "jakarta.persistence.Transient";
+
+    private static final Set<String> LOMBOK_CLASS_GETTERS = Set.of("lombok.Data", "lombok.Getter", "lombok.Value");
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> entities = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                Element type = element.getKind() == ElementKind.FIELD ? element.getEnclosingElement() : element;
+                if (type instanceof TypeElement typeElement && (type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.RECORD)) {
+                    entities.add(typeElement);
+                }
+            }
+        }
+        for (TypeElement entity : entities) {
+            if (!accessible(entity)) {
+                continue;
+            }
+            String name = metadataName(entity);
+            if (!generated.add(name)) {
+                continue;
+            }
+            try (Writer writer = processingEnv.getFiler().createSourceFile(name, entity).openWriter()) {
+                writer.write(generate(entity, name));
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "无法生成 %s：%s".formatted(name, e.getMessage()), entity);
+            }
+        }
+        return false;
+    }
+
+    private String generate(TypeElement entity, String name) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        String entityName = processingEnv.getTypeUtils().erasure(entity.asType()).toString();
+        String tableName = tableName(entity);
+        List<VariableElement> fields = fields(entity);
+        StringBuilder columns = new StringBuilder();
+        StringBuilder properties = new StringBuilder();
+        boolean complete = true;
+        for (VariableElement field : fields) {
+            String fieldName = field.getSimpleName().toString();
+            String getter = getter(entity, field);
+            String type = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+            String read;
+            if (Objects.nonNull(getter)) {
+                read = "((%s) bean).%s()".formatted(entityName, getter);
+            } else if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+                read = "((%s) bean).%s".formatted(entityName, fieldName);
+            } else {
+                complete = false;
+                continue;
+            }
+            properties.append("\n            new EntityMetadata.Property(%s, %s.class, bean -> %s),".formatted(literal(fieldName), type, read));
+            if (Objects.isNull(getter) || entity.getKind() == ElementKind.RECORD
+                    || annotation(field, TRANSIENT).isPresent() && field.getModifiers().contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String columnName = underscore(fieldName);
+            String columnTable = tableName;
+            boolean insertable = true;
+            boolean updatable = true;
+            Optional<AnnotationMirror> column = annotation(field, COLUMN);
+            if (column.isPresent()) {
+                Map<String, Object> values = values(column.get());
+                String value = (String) values.get("name");
+                if (!value.isBlank()) {
+                    columnName = value;
+                }
+                String table = (String) values.get("table");
+                if (!table.isBlank()) {
+                    columnTable = table;
+                }
+                insertable = (Boolean) values.get("insertable");
+                updatable = (Boolean) values.get("updatable");
+            }
+            columns.append("\n        columns.put(%s, EntityMetadata.column(%s, %s, %s, %s, %s, %s));".formatted(
+                    literal(getter), literal(columnTable), literal(fieldName), literal(columnName), insertable, updatable, annotation(field, ID).isPresent()
+            ));
+        }
+        Set<String> names = new HashSet<>();
+        fields.forEach(field -> names.add(field.getSimpleName().toString()));
+        for (ExecutableElement method : derivedGetters(entity)) {
+            String property = property(method.getSimpleName().toString());
+            if (names.add(property)) {
+                String type = processingEnv.getTypeUtils().erasure(method.getReturnType()).toString();
+                properties.append("\n            new EntityMetadata.Property(%s, %s.class, bean -> ((%s) bean).%s()),".formatted(literal(property), type, entityName, method.getSimpleName()));
+            }
+        }
+        if (!properties.isEmpty()) {
+            properties.setLength(properties.length() - 1);
+        }
+        return """
+                package %s;
+
+                import io.github.codert96.orm.core.ColumnInfo;
+                import io.github.codert96.orm.metadata.EntityMetadata;
+
+                import java.util.LinkedHashMap;
+                import java.util.List;
+                import java.util.Map;
+
+                @javax.annotation.processing.Generated("%s")
+                public final class %s implements EntityMetadata {
+                    private static final List<EntityMetadata.Property> PROPERTIES = List.of(%s
+                    );
+
+                    @Override
+                    public Class<?> entityClass() {
+                        return %s.class;
+                    }
+
+                    @Override
+                    public String tableName() {
+                        return %s;
+                    }
+
+                    @Override
+                    public Map<String, ColumnInfo> columns() {
+                        Map<String, ColumnInfo> columns = new LinkedHashMap<>();%s
+                        return columns;
+                    }
+
+                    @Override
+                    public List<EntityMetadata.Property> properties() {
+                        return PROPERTIES;
+                    }
+
+                    @Override
+                    public boolean complete() {
+                        return %s;
+                    }
+                }
+                """.formatted(packageName, getClass().getName(), simpleName, properties, entityName, literal(tableName), columns, complete);
+    }
+
+    /**
+     * 父类字段在前，与 {@code Utils.extract} 中继承属性排在最前一致
+     */
+    private List<VariableElement> fields(TypeElement entity) {
+        Deque<TypeElement> hierarchy = new ArrayDeque<>();
+        TypeElement current = entity;
+        while (Objects.nonNull(current) && !"java.lang.Object".equals(current.getQualifiedName().toString())) {
+            hierarchy.push(current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        List<VariableElement> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TypeElement type : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC) && names.add(field.getSimpleName().toString())) {
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private String getter(TypeElement entity, VariableElement field) {
+        String fieldName = field.getSimpleName().toString();
+        if (entity.getKind() == ElementKind.RECORD) {
+            return fieldName;
+        }
+        String capitalized = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        String name = (field.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get") + capitalized;
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(entity))) {
+            if (method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && (method.getSimpleName().contentEquals("get" + capitalized) || method.getSimpleName().contentEquals("is" + capitalized))) {
+                return method.getSimpleName().toString();
+            }
+        }
+        Element declaring = field.getEnclosingElement();
+        boolean lombok = annotation(field, "lombok.Getter").isPresent()
+                || declaring.getAnnotationMirrors().stream().anyMatch(mirror -> LOMBOK_CLASS_GETTERS.contains(name(mirror)));
+        return lombok ? name : null;
+    }
+
+    /**
+     * 没有对应字段的公开 getter（例如派生的 getFullName()），反射解析时同样作为可读属性
+     */
+    private List<ExecutableElement> derivedGetters(TypeElement entity) {
+        List<ExecutableElement> getters = new ArrayList<>();
+        if (entity.getKind() == ElementKind.RECORD) {
+            return getters;
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(entity))) {
+            String name = method.getSimpleName().toString();
+            TypeKind returnType = method.getReturnType().getKind();
+            boolean getter = name.startsWith("get") && name.length() > 3 && returnType != TypeKind.VOID && !"getClass".equals(name)
+                    || name.startsWith("is") && name.length() > 2 && returnType == TypeKind.BOOLEAN;
+            if (getter && method.getParameters().isEmpty() && method.getTypeParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)) {
+                getters.add(method);
+            }
+        }
+        return getters;
+    }
+
+    /**
+     * 与 Introspector.decapitalize 相同
+     */
+    private static String property(String getter) {
+        String name = getter.substring(getter.startsWith("is") ? 2 : 3);
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private String tableName(TypeElement entity) {
+        Optional<AnnotationMirror> table = annotation(entity, TABLE);
+        if (table.isPresent()) {
+            Map<String, Object> values = values(table.get());
+            String name = (String) values.get("name");
+            String schema = (String) values.get("schema");
+            if (!name.isBlank()) {
+                return schema.isBlank() ? name : "%s.%s".formatted(schema, name);
+            }
+        }
+        return underscore(entity.getSimpleName().toString());
+    }
+
+    /**
+     * 生成类与实体同包，实体及其外层类都不能是私有、局部或非静态内部类
+     */
+    private boolean accessible(TypeElement entity) {
+        for (Element element = entity; element instanceof TypeElement type; element = element.getEnclosingElement()) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            switch (type.getNestingKind()) {
+                case LOCAL, ANONYMOUS -> {
+                    return false;
+                }
+                case MEMBER -> {
+                    if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.STATIC)) {
+                        return false;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return true;
+    }
+
+    private String metadataName(TypeElement entity) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(entity).toString();
+        String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleName.replace('$', '_') + EntityMetadata.SUFFIX;
+    }
+
+    private Optional<AnnotationMirror> annotation(Element element, String annotation) {
+        return element.getAnnotationMirrors().stream()
+                .filter(mirror -> name(mirror).equals(annotation))
+                .map(mirror -> (AnnotationMirror) mirror)
+                .findFirst();
+    }
+
+    private static String name(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private Map<String, Object> values(AnnotationMirror mirror) {
+        Map<String, Object> values = new HashMap<>();
+        processingEnv.getElementUtils().getElementValuesWithDefaults(mirror)
+                .forEach((key, value) -> values.put(key.getSimpleName().toString(), value.getValue()));
+        return values;
+    }
+
+    /**
+     * 与 JdbcUtils.convertPropertyNameToUnderscoreName 相同，处理器运行时不依赖 Spring
+     */
+    private static String underscore(String name) {
+        if (name.isEmpty()) {
+            return name;
+        }
+        StringBuilder result = new StringBuilder().append(Character.toLowerCase(name.charAt(0)));
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                result.append('_').append(Character.toLowerCase(c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
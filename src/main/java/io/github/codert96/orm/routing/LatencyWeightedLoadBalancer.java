@@ -0,0 +1,40 @@
+package io.github.codert96.orm.routing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按平均响应时间的倒数加权随机选择，尚无样本的副本按已有样本的平均值处理，全部没有样本时等概率选择
+ */
+public class LatencyWeightedLoadBalancer implements LoadBalancer {
+    private static final double MIN_LATENCY_NANOS = 1_000;
+
+    @Override
+    public Replica choose(List<Replica> replicas) {
+        int size = replicas.size();
+        double sampled = 0;
+        int samples = 0;
+        for (Replica replica : replicas) {
+            double latency = replica.latencyNanos();
+            if (latency > 0) {
+                sampled += latency;
+                samples++;
+            }
+        }
+        double mean = samples == 0 ? MIN_LATENCY_NANOS : sampled / samples;
+        double[] weights = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            double latency = replicas.get(i).latencyNanos();
+            total += weights[i] = 1 / Math.max(latency > 0 ? latency : mean, MIN_LATENCY_NANOS);
+        }
+        double point = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < size; i++) {
+            point -= weights[i];
+            if (point < 0) {
+                return replicas.get(i);
+            }
+        }
+        return replicas.get(size - 1);
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.codert96.orm.routing;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 选择进行中请求最少的副本，相同时从随机位置开始比较以分散负载
+ */
+public class LeastOutstandingLoadBalancer implements LoadBalancer {
+
+    @Override
+    public Replica choose(List<Replica> replicas) {
+        int size = replicas.size();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        Replica chosen = replicas.get(start);
+        for (int i = 1; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.outstanding() < chosen.outstanding()) {
+                chosen = replica;
+            }
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.codert96.orm.routing;
+
+import java.util.List;
+
+public interface LoadBalancer {
+
+    /**
+     * 从非空的副本列表中选择一个
+     */
+    Replica choose(List<Replica> replicas);
+
+    static LoadBalancer roundRobin() {
+        return new RoundRobinLoadBalancer();
+    }
+
+    static LoadBalancer leastOutstanding() {
+        return new LeastOutstandingLoadBalancer();
+    }
+
+    static LoadBalancer latencyWeighted() {
+        return new LatencyWeightedLoadBalancer();
+    }
+}
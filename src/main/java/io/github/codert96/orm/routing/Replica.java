@@ -0,0 +1,69 @@
+package io.github.codert96.orm.routing;
+
+import lombok.Getter;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只读副本，记录进行中的请求数与响应时间的指数移动平均，供 {@link LoadBalancer} 选择
+ */
+public class Replica {
+    private static final double ALPHA = 0.2;
+
+    @Getter
+    private final String name;
+
+    @Getter
+    private final JdbcOperations jdbcOperations;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * 平均响应时间（double 的位表示），以 CAS 更新
+     */
+    private final AtomicLong latencyNanos = new AtomicLong(Double.doubleToRawLongBits(0));
+
+    public Replica(String name, NamedParameterJdbcOperations namedParameterJdbcOperations) {
+        this.name = name;
+        this.jdbcOperations = namedParameterJdbcOperations.getJdbcOperations();
+    }
+
+    public void begin() {
+        outstanding.incrementAndGet();
+        requests.increment();
+    }
+
+    public void end(long elapsedNanos) {
+        outstanding.decrementAndGet();
+        latencyNanos.getAndUpdate(bits -> {
+            double latency = Double.longBitsToDouble(bits);
+            return Double.doubleToRawLongBits(latency == 0 ? elapsedNanos : latency + ALPHA * (elapsedNanos - latency));
+        });
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * 尚无样本时为 0
+     */
+    public double latencyNanos() {
+        return Double.longBitsToDouble(latencyNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
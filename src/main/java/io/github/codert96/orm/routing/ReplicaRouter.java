@@ -0,0 +1,54 @@
+package io.github.codert96.orm.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离：读请求分发到副本，写请求、非只读事务中的读请求以及强制主库的查询使用主库
+ */
+public class ReplicaRouter {
+    private volatile List<Replica> replicas;
+
+    @Getter
+    @Setter
+    private volatile LoadBalancer loadBalancer;
+
+    public ReplicaRouter(LoadBalancer loadBalancer, Replica... replicas) {
+        this.loadBalancer = loadBalancer;
+        this.replicas = List.of(replicas);
+    }
+
+    public synchronized void add(Replica replica) {
+        List<Replica> list = new ArrayList<>(replicas);
+        list.add(replica);
+        replicas = List.copyOf(list);
+    }
+
+    public synchronized void remove(Replica replica) {
+        List<Replica> list = new ArrayList<>(replicas);
+        list.remove(replica);
+        replicas = List.copyOf(list);
+    }
+
+    public List<Replica> replicas() {
+        return replicas;
+    }
+
+    /**
+     * @return 应使用的副本，返回 null 表示使用主库
+     */
+    public Replica route(boolean forcePrimary) {
+        List<Replica> current = replicas;
+        if (forcePrimary || current.isEmpty()) {
+            return null;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        return loadBalancer.choose(current);
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.codert96.orm.sharding;
+
+import java.util.*;
+
+/**
+ * 多个各自有序的分片结果的 k 路归并，按需从各分片读取；未指定排序时依次连接
+ */
+public class MergingIterator<T> implements Iterator<T> {
+    private final List<Iterator<T>> sources;
+
+    private final Comparator<? super T> comparator;
+
+    private final PriorityQueue<Head<T>> heads;
+
+    private int current;
+
+    public MergingIterator(List<Iterator<T>> sources, Comparator<? super T> comparator) {
+        this.sources = sources;
+        this.comparator = comparator;
+        if (Objects.isNull(comparator)) {
+            this.heads = null;
+            return;
+        }
+        this.heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> {
+            int compare = comparator.compare(a.value, b.value);
+            return compare != 0 ? compare : Integer.compare(a.source, b.source);
+        });
+        for (int i = 0; i < sources.size(); i++) {
+            advance(i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (Objects.nonNull(heads)) {
+            return !heads.isEmpty();
+        }
+        while (current < sources.size() && !sources.get(current).hasNext()) {
+            current++;
+        }
+        return current < sources.size();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (Objects.isNull(heads)) {
+            return sources.get(current).next();
+        }
+        Head<T> head = heads.poll();
+        advance(head.source);
+        return head.value;
+    }
+
+    private void advance(int source) {
+        Iterator<T> iterator = sources.get(source);
+        if (iterator.hasNext()) {
+            heads.add(new Head<>(iterator.next(), source));
+        }
+    }
+
+    private record Head<T>(T value, int source) {
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.codert96.orm.sharding;
+
+import io.github.codert96.orm.core.ColumnInfo;
+import io.github.codert96.orm.utils.BeanAccessor;
+import io.github.codert96.orm.utils.Utils;
+import lombok.Getter;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 拆解 last 末尾的 ORDER BY / LIMIT / OFFSET 以及其后的 FOR UPDATE / FOR SHARE / LOCK IN SHARE MODE，用于分片查询下推与归并。
+ * 其它位置或写法的 LIMIT、OFFSET、FETCH 无法下推，{@link #pushdown()} 时抛出异常
+ */
+@Getter
+public class OrderLimit {
+    private static final Pattern PATTERN = Pattern.compile(
+            "^(.*?)\\s*(?:ORDER\\s+BY\\s+(.+?))?\\s*(?:LIMIT\\s+(\\d+)(?:\\s+OFFSET\\s+(\\d+))?)?\\s*((?:FOR\\s+(?:UPDATE|SHARE)|LOCK\\s+IN\\s+SHARE\\s+MODE)(?:\\s+(?:NOWAIT|SKIP\\s+LOCKED))?)?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL
+    );
+
+    private static final Pattern UNSUPPORTED = Pattern.compile("\\b(?:LIMIT|OFFSET|FETCH)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern ORDER_ITEM = Pattern.compile(
+            "^\\s*(\\S+)(?:\\s+(ASC|DESC))?(?:\\s+NULLS\\s+(FIRST|LAST))?\\s*$",
+            Pattern.CASE_INSENSITIVE
+    );
+
+    private final String rest;
+
+    private final String orderBy;
+
+    private final long limit;
+
+    private final long offset;
+
+    /**
+     * 末尾的锁定子句，原样下发到每个分片
+     */
+    private final String lock;
+
+    private OrderLimit(String rest, String orderBy, long limit, long offset, String lock) {
+        this.rest = rest;
+        this.orderBy = orderBy;
+        this.limit = limit;
+        this.offset = offset;
+        this.lock = lock;
+    }
+
+    public static OrderLimit parse(List<String> lastExpressions) {
+        Matcher matcher = PATTERN.matcher(String.join(" ", lastExpressions).trim());
+        if (!matcher.matches()) {
+            return new OrderLimit(String.join(" ", lastExpressions), null, -1, 0, null);
+        }
+        return new OrderLimit(
+                matcher.group(1),
+                matcher.group(2),
+                Objects.isNull(matcher.group(3)) ? -1 : Long.parseLong(matcher.group(3)),
+                Objects.isNull(matcher.group(4)) ? 0 : Long.parseLong(matcher.group(4)),
+                matcher.group(5)
+        );
+    }
+
+    /**
+     * 每个分片执行的 last：保留排序与锁定子句，LIMIT 扩大为 limit + offset 且不带 OFFSET
+     */
+    public List<String> pushdown() {
+        for (String part : new String[]{rest, orderBy}) {
+            if (StringUtils.hasText(part) && UNSUPPORTED.matcher(part).find()) {
+                throw new IllegalArgumentException("无法拆解 last() 中的 %s：分片或分块查询只支持末尾的 ORDER BY ... LIMIT n OFFSET m [FOR UPDATE]".formatted(part.trim()));
+            }
+        }
+        List<String> last = new ArrayList<>();
+        if (StringUtils.hasText(rest)) {
+            last.add(rest);
+        }
+        if (StringUtils.hasText(orderBy)) {
+            last.add("ORDER BY ".concat(orderBy));
+        }
+        if (limit >= 0) {
+            last.add("LIMIT %s".formatted(limit + offset));
+        }
+        if (StringUtils.hasText(lock)) {
+            last.add(lock);
+        }
+        return last;
+    }
+
+    /**
+     * 去掉排序与分页后的 last，用于各分片的 COUNT
+     */
+    public List<String> unordered() {
+        return StringUtils.hasText(rest) ? List.of(rest) : List.of();
+    }
+
+    /**
+     * 按 ORDER BY 列在结果对象上的属性比较，没有排序时返回 null
+     */
+    public <T> Comparator<T> comparator(Class<T> resultClass) {
+        if (!StringUtils.hasText(orderBy)) {
+            return null;
+        }
+        BeanAccessor accessor = Utils.accessor(resultClass);
+        List<ColumnInfo> columns = Utils.extractColumns(resultClass);
+        Comparator<T> comparator = null;
+        for (String item : orderBy.split(",")) {
+            Matcher matcher = ORDER_ITEM.matcher(item);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("分片或分块查询无法按 %s 归并排序".formatted(item.trim()));
+            }
+            String column = matcher.group(1);
+            column = column.substring(column.lastIndexOf('.') + 1);
+            String property = property(column, columns, accessor);
+            boolean desc = "DESC".equalsIgnoreCase(matcher.group(2));
+            boolean nullsFirst = Objects.isNull(matcher.group(3)) ? !desc : "FIRST".equalsIgnoreCase(matcher.group(3));
+            Comparator<Comparable<Object>> natural = desc ? Comparator.<Comparable<Object>>reverseOrder() : Comparator.<Comparable<Object>>naturalOrder();
+            Comparator<Comparable<Object>> values = nullsFirst ? Comparator.nullsFirst(natural) : Comparator.nullsLast(natural);
+            //noinspection unchecked
+            Comparator<T> next = Comparator.comparing(row -> (Comparable<Object>) accessor.get(row, property), values);
+            comparator = Objects.isNull(comparator) ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static String property(String column, List<ColumnInfo> columns, BeanAccessor accessor) {
+        for (ColumnInfo columnInfo : columns) {
+            if (columnInfo.getColumnName().equalsIgnoreCase(column) || columnInfo.getFieldName().equalsIgnoreCase(column)) {
+                return columnInfo.getFieldName();
+            }
+        }
+        String property = JdbcUtils.convertUnderscoreNameToPropertyName(column);
+        if (accessor.has(property)) {
+            return property;
+        }
+        throw new IllegalArgumentException("分片或分块查询无法按 %s 归并排序：结果中没有对应属性".formatted(column));
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.codert96.orm.sharding;
+
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 一个物理分片：表名与所在数据库，operations 为 null 时使用 Example 的默认数据源
+ */
+public record Shard(String tableName, NamedParameterJdbcOperations operations) {
+
+    /**
+     * 同一数据库中的分表：prefix_00 ... prefix_(count-1)，编号至少两位
+     */
+    public static List<Shard> tables(String prefix, int count) {
+        int width = Math.max(2, String.valueOf(count - 1).length());
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Shard(("%s_%0" + width + "d").formatted(prefix, i), null))
+                .toList();
+    }
+
+    /**
+     * 分布在多个数据库中的同名表
+     */
+    public static List<Shard> databases(String tableName, List<NamedParameterJdbcOperations> operations) {
+        return operations.stream().map(operation -> new Shard(tableName, operation)).toList();
+    }
+
+    @Override
+    public String toString() {
+        return tableName;
+    }
+}
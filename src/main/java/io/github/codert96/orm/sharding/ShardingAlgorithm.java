@@ -0,0 +1,16 @@
+package io.github.codert96.orm.sharding;
+
+@FunctionalInterface
+public interface ShardingAlgorithm {
+    /**
+     * 整数按值取模，其它类型按 hashCode 取模
+     */
+    ShardingAlgorithm MOD = (key, shardCount) -> key instanceof Number number
+            ? (int) Math.floorMod(number.longValue(), (long) shardCount)
+            : Math.floorMod(key.hashCode(), shardCount);
+
+    /**
+     * @return [0, shardCount) 之间的分片下标
+     */
+    int shard(Object key, int shardCount);
+}
@@ -0,0 +1,57 @@
+package io.github.codert96.orm.sharding;
+
+import io.github.codert96.orm.core.ColumnFunction;
+import io.github.codert96.orm.utils.BeanAccessor;
+import io.github.codert96.orm.utils.Utils;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 实体类的分片规则：按分片键的值选择分片
+ */
+@Getter
+public class ShardingRule {
+    private final Class<?> entityClass;
+
+    private final String keyField;
+
+    private final List<Shard> shards;
+
+    private final ShardingAlgorithm algorithm;
+
+    private ShardingRule(Class<?> entityClass, String keyField, List<Shard> shards, ShardingAlgorithm algorithm) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("%s 的分片列表为空".formatted(entityClass.getName()));
+        }
+        this.entityClass = entityClass;
+        this.keyField = keyField;
+        this.shards = List.copyOf(shards);
+        this.algorithm = algorithm;
+    }
+
+    public static <E> ShardingRule of(Class<E> entityClass, ColumnFunction<E, ?> key, List<Shard> shards) {
+        return of(entityClass, key, shards, ShardingAlgorithm.MOD);
+    }
+
+    public static <E> ShardingRule of(Class<E> entityClass, ColumnFunction<E, ?> key, List<Shard> shards, ShardingAlgorithm algorithm) {
+        return new ShardingRule(entityClass, Utils.extractColumn(key).getFieldName(), shards, algorithm);
+    }
+
+    public Shard shard(Object key) {
+        return shards.get(Math.floorMod(algorithm.shard(key, shards.size()), shards.size()));
+    }
+
+    /**
+     * 按对象上分片键属性的值选择分片，对象没有该属性或值为 null 时返回 null
+     */
+    public Shard route(Object bean) {
+        BeanAccessor accessor = Utils.accessor(bean.getClass());
+        if (!accessor.has(keyField)) {
+            return null;
+        }
+        Object key = accessor.get(bean, keyField);
+        return Objects.isNull(key) ? null : shard(key);
+    }
+}
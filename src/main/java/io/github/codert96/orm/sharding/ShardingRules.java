@@ -0,0 +1,20 @@
+package io.github.codert96.orm.sharding;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ShardingRules {
+    private final Map<Class<?>, ShardingRule> rules = new ConcurrentHashMap<>();
+
+    public void register(ShardingRule rule) {
+        rules.put(rule.getEntityClass(), rule);
+    }
+
+    public void remove(Class<?> entityClass) {
+        rules.remove(entityClass);
+    }
+
+    public ShardingRule rule(Class<?> entityClass) {
+        return rules.isEmpty() ? null : rules.get(entityClass);
+    }
+}
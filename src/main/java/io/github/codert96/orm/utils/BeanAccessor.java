@@ -0,0 +1,134 @@
+package io.github.codert96.orm.utils;
+
+import io.github.codert96.orm.metadata.EntityMetadata;
+import lombok.SneakyThrows;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 按类预先解析的属性读取表，读取属性值与 SQL 类型时不再做内省
+ */
+public final class BeanAccessor {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodHandle APPLY = apply();
+
+    private final Map<String, Property> properties;
+
+    private final String[] names;
+
+    BeanAccessor(Class<?> clazz) {
+        Map<String, Property> resolved = new LinkedHashMap<>();
+        if (clazz.isRecord()) {
+            for (RecordComponent component : clazz.getRecordComponents()) {
+                put(resolved, component.getName(), component.getType(), component.getAccessor());
+            }
+        } else {
+            for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(clazz)) {
+                if (Objects.nonNull(descriptor.getReadMethod()) && !"class".equals(descriptor.getName())) {
+                    put(resolved, descriptor.getName(), descriptor.getPropertyType(), descriptor.getReadMethod());
+                }
+            }
+            ReflectionUtils.doWithFields(clazz, field -> {
+                if (!resolved.containsKey(field.getName()) && !Modifier.isStatic(field.getModifiers())) {
+                    put(resolved, field);
+                }
+            });
+        }
+        this.properties = new HashMap<>(resolved);
+        this.names = resolved.keySet().toArray(String[]::new);
+    }
+
+    /**
+     * 使用编译期生成的读取函数，不做内省
+     */
+    BeanAccessor(EntityMetadata metadata) {
+        Map<String, Property> resolved = new LinkedHashMap<>();
+        for (EntityMetadata.Property property : metadata.properties()) {
+            resolved.put(property.name(), new Property(APPLY.bindTo(property.getter()), property.type()));
+        }
+        this.properties = new HashMap<>(resolved);
+        this.names = resolved.keySet().toArray(String[]::new);
+    }
+
+    public boolean has(String name) {
+        return properties.containsKey(name);
+    }
+
+    @SneakyThrows
+    public Object get(Object bean, String name) {
+        return (Object) property(name).getter.invokeExact(bean);
+    }
+
+    public Class<?> type(String name) {
+        return property(name).type;
+    }
+
+    public int sqlType(String name) {
+        return property(name).sqlType;
+    }
+
+    public String[] names() {
+        return names.clone();
+    }
+
+    private Property property(String name) {
+        Property property = properties.get(name);
+        if (Objects.isNull(property)) {
+            throw new IllegalArgumentException("属性不存在或不可读：%s".formatted(name));
+        }
+        return property;
+    }
+
+    @SneakyThrows
+    private static MethodHandle apply() {
+        return LOOKUP.findVirtual(Function.class, "apply", GETTER_TYPE);
+    }
+
+    private static void put(Map<String, Property> properties, String name, Class<?> type, Method readMethod) {
+        try {
+            ReflectionUtils.makeAccessible(readMethod);
+            properties.put(name, new Property(LOOKUP.unreflect(readMethod).asType(GETTER_TYPE), type));
+        } catch (IllegalAccessException ignored) {
+        }
+    }
+
+    private static void put(Map<String, Property> properties, Field field) {
+        try {
+            ReflectionUtils.makeAccessible(field);
+            properties.put(field.getName(), new Property(LOOKUP.unreflectGetter(field).asType(GETTER_TYPE), field.getType()));
+        } catch (RuntimeException | IllegalAccessException ignored) {
+        }
+    }
+
+    private static final class Property {
+        private final MethodHandle getter;
+
+        private final Class<?> type;
+
+        private final int sqlType;
+
+        private Property(MethodHandle getter, Class<?> type) {
+            this.getter = getter;
+            this.type = type;
+            this.sqlType = StatementCreatorUtils.javaTypeToSqlParameterType(type);
+        }
+    }
+}
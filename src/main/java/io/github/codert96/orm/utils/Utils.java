@@ -2,7 +2,9 @@ package io.github.codert96.orm.utils;
 
 import io.github.codert96.orm.core.ColumnFunction;
 import io.github.codert96.orm.core.ColumnInfo;
+import io.github.codert96.orm.metadata.EntityMetadata;
 import jakarta.persistence.Column;
+import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import lombok.SneakyThrows;
@@ -19,7 +21,6 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -29,8 +30,41 @@ import static java.beans.Introspector.decapitalize;
 @SuppressWarnings("unused")
 @UtilityClass
 public class Utils {
-    private static final Map<String, Map<String, ColumnInfo>> classCache = new ConcurrentHashMap<>();
-    private static final Map<Class<?>, String> tableNameCache = new ConcurrentHashMap<>();
+    private static final ClassValue<ClassColumns> classCache = new ClassValue<>() {
+        @Override
+        protected ClassColumns computeValue(Class<?> type) {
+            return new ClassColumns();
+        }
+    };
+    private static final ClassValue<String> tableNameCache = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            EntityMetadata metadata = metadata(type);
+            return Objects.nonNull(metadata) ? metadata.tableName() : resolveTableName(type);
+        }
+    };
+    private static final ClassValue<BeanAccessor> accessorCache = new ClassValue<>() {
+        @Override
+        protected BeanAccessor computeValue(Class<?> type) {
+            EntityMetadata metadata = metadata(type);
+            return Objects.nonNull(metadata) && metadata.complete() ? new BeanAccessor(metadata) : new BeanAccessor(type);
+        }
+    };
+    private static final ClassValue<Optional<EntityMetadata>> metadataCache = new ClassValue<>() {
+        @Override
+        protected Optional<EntityMetadata> computeValue(Class<?> type) {
+            return Optional.ofNullable(loadMetadata(type));
+        }
+    };
+    /**
+     * 以 lambda 的合成类为键缓存解析结果，预热后解析只需一次查找
+     */
+    private static final ClassValue<LambdaColumn> lambdaCache = new ClassValue<>() {
+        @Override
+        protected LambdaColumn computeValue(Class<?> type) {
+            return new LambdaColumn();
+        }
+    };
 
     @SneakyThrows
     public <DTO> SerializedLambda extract(ColumnFunction<DTO, ?> function) {
@@ -54,13 +88,21 @@ public class Utils {
 
     @SneakyThrows
     public <DTO> ColumnInfo extractColumn(ColumnFunction<DTO, ?> function) {
+        LambdaColumn lambdaColumn = lambdaCache.get(function.getClass());
+        if (lambdaColumn.resolved) {
+            return lambdaColumn.columnInfo;
+        }
         SerializedLambda serializedLambda = extract(function);
-        return cache(ClassUtils.forName(serializedLambda.getImplClass().replace("/", "."), null), serializedLambda.getImplMethodName());
+        Class<?> implClass = ClassUtils.forName(serializedLambda.getImplClass().replace("/", "."), function.getClass().getClassLoader());
+        ColumnInfo columnInfo = cache(implClass, serializedLambda.getImplMethodName());
+        lambdaColumn.columnInfo = columnInfo;
+        lambdaColumn.resolved = true;
+        return columnInfo;
     }
 
     public List<ColumnInfo> extractColumns(Class<?> clazz) {
         extract(clazz);
-        return classCache.getOrDefault(clazz.getName(), Map.of())
+        return classCache.get(clazz).columns
                 .values()
                 .stream()
                 .filter(Objects::nonNull)
@@ -68,8 +110,11 @@ public class Utils {
     }
 
     private ColumnInfo cache(Class<?> clazz, String method) {
+        if (!classCache.get(clazz).complete && Objects.nonNull(metadata(clazz))) {
+            extract(clazz);
+        }
         String extractedTableName = extractTableName(clazz);
-        return classCache.computeIfAbsent(clazz.getName(), className -> Collections.synchronizedMap(new LinkedHashMap<>()))
+        return classCache.get(clazz).columns
                 .computeIfAbsent(method, methodName -> {
                     ColumnInfo columnInfo = new ColumnInfo();
                     String fieldName = extractFieldName(methodName);
@@ -95,51 +140,72 @@ public class Utils {
                             columnInfo.setTableName(tableName);
                         }
                         columnInfo.setColumnName(columnName);
-                        columnInfo.setInsertable(columnInfo.isInsertable());
-                        columnInfo.setUpdatable(columnInfo.isUpdatable());
+                        columnInfo.setInsertable(column.insertable());
+                        columnInfo.setUpdatable(column.updatable());
                     }
+                    columnInfo.setId(declaredField.isAnnotationPresent(Id.class));
                     return columnInfo;
                 });
     }
 
     public String extractTableName(Class<?> clazz) {
-        return tableNameCache.computeIfAbsent(clazz, tmp -> {
-            String simpleName = tmp.getSimpleName();
-            AtomicReference<String> tableNameRef = new AtomicReference<>(
-                    JdbcUtils.convertPropertyNameToUnderscoreName(simpleName)
-            );
-            if (clazz.isAnnotationPresent(Table.class)) {
-                Table table = clazz.getAnnotation(Table.class);
-                String name = table.name();
-                String schema = table.schema();
-                if (StringUtils.hasText(name)) {
-                    tableNameRef.set(name);
-                    if (StringUtils.hasText(schema)) {
-                        tableNameRef.set(
-                                "%s.%s".formatted(schema, name)
-                        );
-                    }
+        return tableNameCache.get(clazz);
+    }
+
+    private String resolveTableName(Class<?> clazz) {
+        String simpleName = clazz.getSimpleName();
+        AtomicReference<String> tableNameRef = new AtomicReference<>(
+                JdbcUtils.convertPropertyNameToUnderscoreName(simpleName)
+        );
+        if (clazz.isAnnotationPresent(Table.class)) {
+            Table table = clazz.getAnnotation(Table.class);
+            String name = table.name();
+            String schema = table.schema();
+            if (StringUtils.hasText(name)) {
+                tableNameRef.set(name);
+                if (StringUtils.hasText(schema)) {
+                    tableNameRef.set(
+                            "%s.%s".formatted(schema, name)
+                    );
                 }
             }
-            return tableNameRef.get();
-        });
+        }
+        return tableNameRef.get();
     }
 
     public List<String> extract(Class<?> clazz) {
-        String clazzName = clazz.getName();
-        if (!classCache.containsKey(clazzName)) {
+        ClassColumns classColumns = classCache.get(clazz);
+        EntityMetadata metadata = classColumns.complete ? null : metadata(clazz);
+        if (Objects.nonNull(metadata)) {
+            Map<String, ColumnInfo> columns = metadata.columns();
+            synchronized (classColumns.columns) {
+                columns.keySet().forEach(classColumns.columns::remove);
+                classColumns.columns.putAll(columns);
+            }
+            classColumns.complete = true;
+        } else if (!classColumns.complete) {
             PropertyDescriptor[] beanProperties = ReflectUtils.getBeanProperties(clazz);
             List<String> fieldNames = Stream.of(clazz.getDeclaredFields()).map(Field::getName).toList();
-            Stream.of(beanProperties)
+            List<String> methodNames = Stream.of(beanProperties)
                     .sorted(Comparator.comparing(propertyDescriptor -> {
                         String name = propertyDescriptor.getName();
                         return fieldNames.indexOf(name);
                     }))
                     .map(PropertyDescriptor::getReadMethod)
-                    .toList()
-                    .forEach(method -> cache(clazz, method.getName()));
+                    .map(Method::getName)
+                    .toList();
+            methodNames.forEach(methodName -> cache(clazz, methodName));
+            // 单列解析可能先于整表解析写入缓存，这里按字段声明顺序重排
+            synchronized (classColumns.columns) {
+                methodNames.forEach(methodName -> {
+                    if (classColumns.columns.containsKey(methodName)) {
+                        classColumns.columns.put(methodName, classColumns.columns.remove(methodName));
+                    }
+                });
+            }
+            classColumns.complete = true;
         }
-        return classCache.getOrDefault(clazzName, Map.of())
+        return classColumns.columns
                 .values()
                 .stream()
                 .filter(Objects::nonNull)
@@ -164,6 +230,47 @@ public class Utils {
         return false;
     }
 
+    /**
+     * 清除类型（实体类或 lambda 合成类）的元数据缓存，下次访问时重新解析
+     */
+    public void clearCache(Class<?> type) {
+        classCache.remove(type);
+        tableNameCache.remove(type);
+        lambdaCache.remove(type);
+        accessorCache.remove(type);
+        metadataCache.remove(type);
+    }
+
+    public BeanAccessor accessor(Class<?> clazz) {
+        return accessorCache.get(clazz);
+    }
+
+    /**
+     * 编译期生成的元数据，没有时返回 null
+     */
+    public EntityMetadata metadata(Class<?> clazz) {
+        return metadataCache.get(clazz).orElse(null);
+    }
+
+    private EntityMetadata loadMetadata(Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        if (Objects.isNull(classLoader) || type.isArray() || type.isPrimitive()) {
+            return null;
+        }
+        String name = type.getPackageName().isEmpty()
+                ? type.getName().replace('$', '_') + EntityMetadata.SUFFIX
+                : type.getPackageName() + "." + type.getName().substring(type.getPackageName().length() + 1).replace('$', '_') + EntityMetadata.SUFFIX;
+        try {
+            Class<?> metadataClass = Class.forName(name, true, classLoader);
+            if (EntityMetadata.class.isAssignableFrom(metadataClass)) {
+                EntityMetadata metadata = (EntityMetadata) metadataClass.getDeclaredConstructor().newInstance();
+                return metadata.entityClass() == type ? metadata : null;
+            }
+        } catch (ReflectiveOperationException | LinkageError ignored) {
+        }
+        return null;
+    }
+
     public static String formatSql(String sql, Object args) {
         Class<?> clazz = args.getClass();
         Field[] declaredFields = clazz.getDeclaredFields();
@@ -183,6 +290,18 @@ public class Utils {
         return sql;
     }
 
+    private static final class ClassColumns {
+        private final Map<String, ColumnInfo> columns = Collections.synchronizedMap(new LinkedHashMap<>());
+
+        private volatile boolean complete;
+    }
+
+    private static final class LambdaColumn {
+        private volatile ColumnInfo columnInfo;
+
+        private volatile boolean resolved;
+    }
+
     private interface Func<T, R> extends Function<T, R> {
         default R apply(T t) {
             try {